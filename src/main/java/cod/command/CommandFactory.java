@@ -21,10 +21,16 @@ import cod.command.impl.ViewNotificationsCommand;
 import cod.command.impl.ViewTicketHistoryCommand;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.util.Set;
+
 /**
  Factory class for creating command objects based on command names.
  */
 public final class CommandFactory {
+    private static final Set<String> MUTATING_COMMANDS = Set.of(
+            "startTestingPhase", "reportTicket", "createMilestone", "assignTicket",
+            "undoAssignTicket", "addComment", "undoAddComment", "changeStatus",
+            "undoChangeStatus", "viewTickets", "viewNotifications");
 
     /**
      Private constructor to prevent instantiation of utility class.
@@ -83,4 +89,15 @@ public final class CommandFactory {
                 return null;
         }
     }
+
+    /**
+     Checks if the command can change the database. Besides the commands that
+     edit tickets and milestones, viewTickets recomputes priorities and
+     viewNotifications consumes notifications; errors count too, since the
+     deadline checks run before the arguments are validated. The other commands
+     are read-only and may run in parallel with each other.
+     */
+    public static boolean isMutating(final String commandName) {
+        return MUTATING_COMMANDS.contains(commandName);
+    }
 }
@@ -1,5 +1,6 @@
 package cod.command;
 
+import cod.database.Database;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -8,7 +9,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 public interface ICommand {
 
     /**
-     Executes the command logic.
+     Executes the command logic against the given database.
      */
-    ObjectNode execute();
+    ObjectNode execute(Database db);
 }
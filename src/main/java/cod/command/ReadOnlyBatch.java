@@ -0,0 +1,113 @@
+package cod.command;
+
+import cod.database.Database;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ A run of consecutive read-only commands. None of them changes the database,
+ so they all execute in parallel against the same state, which stays stable
+ because the next mutating command only runs once the whole batch is done.
+ Results come back in the order the commands were added.
+ */
+public final class ReadOnlyBatch {
+    private static final int MAX_SIZE = 256;
+    private static final boolean PARALLEL = ForkJoinPool.getCommonPoolParallelism() > 1;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<ICommand> commands = new ArrayList<>();
+    private final boolean parallel;
+
+    /**
+     Creates a batch that runs in parallel when the common pool has spare cores.
+     */
+    public ReadOnlyBatch() {
+        this(PARALLEL);
+    }
+
+    /**
+     Creates a batch that runs its commands on the common pool or not, whatever
+     the number of cores.
+     */
+    public ReadOnlyBatch(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     Adds a read-only command to the batch.
+     */
+    public void add(final String commandName, final ICommand command) {
+        names.add(commandName);
+        commands.add(command);
+    }
+
+    /**
+     Checks if the batch holds no command.
+     */
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     Checks if the batch reached the size after which it should be run.
+     */
+    public boolean isFull() {
+        return commands.size() >= MAX_SIZE;
+    }
+
+    /**
+     Gets the names of the batched commands, in order.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     Executes every command of the batch, the first one on the calling thread
+     and the others on the common pool. Unless the batch was made parallel, they
+     all run on the calling thread without spare cores, where the pool would
+     fall back to a thread per task.
+     return the results, in the order the commands were added
+     */
+    public List<ObjectNode> execute(final Database db) {
+        List<CompletableFuture<ObjectNode>> pending = new ArrayList<>();
+        for (int i = 1; i < commands.size() && parallel; i++) {
+            ICommand command = commands.get(i);
+            pending.add(CompletableFuture.supplyAsync(() -> command.execute(db),
+                    ForkJoinPool.commonPool()));
+        }
+
+        List<ObjectNode> results = new ArrayList<>(commands.size());
+        int inline = parallel ? Math.min(1, commands.size()) : commands.size();
+        for (int i = 0; i < inline; i++) {
+            results.add(commands.get(i).execute(db));
+        }
+        for (CompletableFuture<ObjectNode> future : pending) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     Removes every command from the batch.
+     */
+    public void clear() {
+        names.clear();
+        commands.clear();
+    }
+}
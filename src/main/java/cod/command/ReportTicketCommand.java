@@ -1,26 +1,26 @@
 package cod.command;
 
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Ticket;
 import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public final class ReportTicketCommand implements ICommand {
     private static final int MAX_TESTING_DAYS = 12;
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ReportTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestampStr = args.has("timestamp")
@@ -43,11 +43,11 @@ public final class ReportTicketCommand implements ICommand {
             return result;
         }
 
-        if (db.getTestingPhaseStartDate() == null) {
-            db.setTestingPhaseStartDate(LocalDate.parse(timestampStr));
+        int today = DateUtils.parseEpochDay(timestampStr);
+        if (db.getTestingPhaseStartDay() == DateUtils.NO_DATE) {
+            db.setTestingPhaseStartDay(today);
         }
-        long daysElapsed = ChronoUnit.DAYS.between(db.getTestingPhaseStartDate(),
-                LocalDate.parse(timestampStr)) + 1;
+        long daysElapsed = DateUtils.daysBetween(db.getTestingPhaseStartDay(), today);
 
         if (!db.isTestingPhase() || daysElapsed > MAX_TESTING_DAYS) {
             result.put("command", "reportTicket");
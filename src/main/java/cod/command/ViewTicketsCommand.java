@@ -1,17 +1,20 @@
 package cod.command;
 
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Milestone;
 import cod.model.Ticket;
+import cod.model.TicketView;
 import cod.model.User;
+import cod.utils.DateUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 public final class ViewTicketsCommand implements ICommand {
     private static final int DAYS_PER_BOOST = 3;
@@ -23,15 +26,14 @@ public final class ViewTicketsCommand implements ICommand {
     private static final int PRIO_CRIT = 3;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ViewTicketsCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -54,35 +56,29 @@ public final class ViewTicketsCommand implements ICommand {
         ArrayNode ticketsArray = result.putArray("tickets");
         List<Ticket> visibleTickets = new ArrayList<>();
 
-        for (Ticket t : db.getTickets()) {
-            boolean include = false;
-            String role = user.getRole();
-
-            if ("MANAGER".equals(role)) {
-                include = true;
-            } else if ("REPORTER".equals(role)) {
-                if (t.getReportedBy().equals(username)) {
-                    include = true;
-                }
-            } else if ("DEVELOPER".equals(role)) {
-                if ("OPEN".equals(t.getStatus())) {
-                    for (Milestone m : db.getMilestones()) {
-                        if (m.getAssignedDevs().contains(username)
-                                && m.getTickets().contains(t.getId())) {
-                            include = true;
-                            break;
-                        }
+        String role = user.getRole();
+
+        if ("MANAGER".equals(role)) {
+            visibleTickets.addAll(db.getTickets());
+        } else if ("REPORTER".equals(role)) {
+            visibleTickets.addAll(db.getTicketsReportedBy(username));
+        } else if ("DEVELOPER".equals(role)) {
+            BitSet ids = new BitSet();
+            for (Milestone m : db.getMilestonesForDeveloper(username)) {
+                for (Integer tId : m.getOpenTicketIds()) {
+                    Ticket t = db.getTicket(tId);
+                    if (t != null && "OPEN".equals(t.getStatus())) {
+                        ids.set(tId);
                     }
                 }
             }
-
-            if (include) {
-                visibleTickets.add(t);
+            for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                visibleTickets.add(db.getTicket(id));
             }
         }
 
         for (Ticket t : visibleTickets) {
-            ticketsArray.add(mapper.valueToTree(t));
+            ticketsArray.addPOJO(TicketView.of(t, TicketView.Projection.FULL));
         }
 
         return result;
@@ -92,21 +88,19 @@ public final class ViewTicketsCommand implements ICommand {
         if (currentTimestampStr == null || currentTimestampStr.isEmpty()) {
             return;
         }
-        LocalDate current = LocalDate.parse(currentTimestampStr);
+        int current = DateUtils.parseEpochDay(currentTimestampStr);
 
         for (Milestone m : db.getMilestones()) {
-            if (m.getIsBlocked()) {
+            if (m.getIsBlocked() || m.getCreatedDay() == DateUtils.NO_DATE
+                    || m.getDueDay() == DateUtils.NO_DATE) {
                 continue;
             }
 
-            LocalDate created = LocalDate.parse(m.getCreatedAt());
-            LocalDate due = LocalDate.parse(m.getDueDate());
-
-            long daysActive = ChronoUnit.DAYS.between(created, current) + 1;
+            long daysActive = DateUtils.daysBetween(m.getCreatedDay(), current);
             int boost = (int) (daysActive / DAYS_PER_BOOST);
 
             boolean criticalMode = false;
-            long daysToDue = ChronoUnit.DAYS.between(current, due);
+            long daysToDue = (long) m.getDueDay() - current;
 
             if (daysToDue == 1 || daysToDue < 0) {
                 criticalMode = true;
@@ -117,28 +111,38 @@ public final class ViewTicketsCommand implements ICommand {
                 if (t == null) {
                     continue;
                 }
-                if ("CLOSED".equals(t.getStatus())) {
-                    continue;
+                Lock ticketLock = db.ticketLock(tId);
+                ticketLock.lock();
+                try {
+                    updatePriority(t, boost, criticalMode);
+                } finally {
+                    ticketLock.unlock();
                 }
+            }
+        }
+    }
 
-                String initial = t.getInitialBusinessPriority();
-                if (initial == null) {
-                    initial = t.getBusinessPriority();
-                }
+    private void updatePriority(final Ticket t, final int boost, final boolean criticalMode) {
+        if ("CLOSED".equals(t.getStatus())) {
+            return;
+        }
 
-                int prioVal = getPriorityValue(initial);
-                prioVal += boost;
-                if (prioVal > MAX_PRIORITY_VAL) {
-                    prioVal = MAX_PRIORITY_VAL;
-                }
+        String initial = t.getInitialBusinessPriority();
+        if (initial == null) {
+            initial = t.getBusinessPriority();
+        }
 
-                if (criticalMode) {
-                    prioVal = MAX_PRIORITY_VAL;
-                }
+        int prioVal = getPriorityValue(initial);
+        prioVal += boost;
+        if (prioVal > MAX_PRIORITY_VAL) {
+            prioVal = MAX_PRIORITY_VAL;
+        }
 
-                t.setComputedPriority(getPriorityString(prioVal));
-            }
+        if (criticalMode) {
+            prioVal = MAX_PRIORITY_VAL;
         }
+
+        t.setComputedPriority(getPriorityString(prioVal));
     }
 
     private int getPriorityValue(final String p) {
@@ -5,22 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Comment;
 import cod.model.Ticket;
 import cod.model.User;
 
+import java.util.concurrent.locks.Lock;
+
 public final class AddCommentCommand implements ICommand {
     private static final int MIN_COMMENT_LENGTH = 10;
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public AddCommentCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -38,42 +40,48 @@ public final class AddCommentCommand implements ICommand {
             return null;
         }
 
-        if (t.getReportedBy().isEmpty()) {
-            return buildError(result, "addComment", username, timestamp,
-                    "Comments are not allowed on anonymous tickets.");
-        }
-
-        if (commentText == null || commentText.length() < MIN_COMMENT_LENGTH) {
-            return buildError(result, "addComment", username, timestamp,
-                    "Comment must be at least 10 characters long.");
-        }
-
-        String role = user.getRole();
-
-        if ("DEVELOPER".equals(role)) {
-            if (!username.equals(t.getAssignedTo())) {
+        Lock ticketLock = db.ticketLock(ticketId);
+        ticketLock.lock();
+        try {
+            if (t.getReportedBy().isEmpty()) {
                 return buildError(result, "addComment", username, timestamp,
-                        "Ticket " + ticketId + " is not assigned to the developer "
-                                + username + ".");
+                        "Comments are not allowed on anonymous tickets.");
             }
-        } else if ("REPORTER".equals(role)) {
-            if ("CLOSED".equals(t.getStatus())) {
+
+            if (commentText == null || commentText.length() < MIN_COMMENT_LENGTH) {
                 return buildError(result, "addComment", username, timestamp,
-                        "Reporters cannot comment on CLOSED tickets.");
+                        "Comment must be at least 10 characters long.");
             }
 
-            if (!username.equals(t.getReportedBy())) {
-                return buildError(result, "addComment", username, timestamp,
-                        "Reporter " + username + " cannot comment on ticket "
-                                + ticketId + ".");
+            String role = user.getRole();
+
+            if ("DEVELOPER".equals(role)) {
+                if (!username.equals(t.getAssignedTo())) {
+                    return buildError(result, "addComment", username, timestamp,
+                            "Ticket " + ticketId + " is not assigned to the developer "
+                                    + username + ".");
+                }
+            } else if ("REPORTER".equals(role)) {
+                if ("CLOSED".equals(t.getStatus())) {
+                    return buildError(result, "addComment", username, timestamp,
+                            "Reporters cannot comment on CLOSED tickets.");
+                }
+
+                if (!username.equals(t.getReportedBy())) {
+                    return buildError(result, "addComment", username, timestamp,
+                            "Reporter " + username + " cannot comment on ticket "
+                                    + ticketId + ".");
+                }
             }
-        }
 
-        Comment c = new Comment(username, commentText, timestamp);
-        t.addComment(c);
+            Comment c = new Comment(username, commentText, timestamp);
+            t.addComment(c);
 
-        result.put("status", "success");
-        return result;
+            result.put("status", "success");
+            return result;
+        } finally {
+            ticketLock.unlock();
+        }
     }
 
     private ObjectNode buildError(final ObjectNode result, final String command,
@@ -2,19 +2,19 @@ package cod.command.impl;
 
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.io.Serialization;
 import cod.model.Ticket;
+import cod.utils.DateUtils;
+import cod.utils.ReportAccumulator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 public final class AppStabilityReportCommand implements ICommand {
+    private static final int RISK = 0;
+    private static final int IMPACT = 1;
     private static final double SCALE_100 = 100.0;
     private static final int DEFAULT_USABILITY = 10;
     private static final int USABILITY_MAX = 10;
@@ -56,15 +56,14 @@ public final class AppStabilityReportCommand implements ICommand {
     private static final double IMP_DEM_CRIT = 4.0;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public AppStabilityReportCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -76,68 +75,26 @@ public final class AppStabilityReportCommand implements ICommand {
 
         ObjectNode reportNode = result.putObject("report");
 
-        int totalOpenTickets = 0;
+        ReadVersion version = db.pinVersion();
+        ReportAccumulator acc = ReportAccumulator.collect(version.findTickets("OPEN"),
+                List.of(this::calculateRiskScore, t -> calculateImpactScore(t, timestamp)));
 
-        Map<String, Integer> openTicketsByType = new LinkedHashMap<>();
-        openTicketsByType.put("BUG", 0);
-        openTicketsByType.put("FEATURE_REQUEST", 0);
-        openTicketsByType.put("UI_FEEDBACK", 0);
-
-        Map<String, Integer> openTicketsByPriority = new LinkedHashMap<>();
-        openTicketsByPriority.put("LOW", 0);
-        openTicketsByPriority.put("MEDIUM", 0);
-        openTicketsByPriority.put("HIGH", 0);
-        openTicketsByPriority.put("CRITICAL", 0);
-
-        Map<String, List<Double>> riskScoresByType = new HashMap<>();
-        Map<String, Double> impactSumsByType = new LinkedHashMap<>();
-
-        for (String t : openTicketsByType.keySet()) {
-            riskScoresByType.put(t, new ArrayList<>());
-            impactSumsByType.put(t, 0.0);
-        }
-
-        for (Ticket t : db.getTickets()) {
-            if (!"OPEN".equals(t.getStatus())) {
-                continue;
-            }
-
-            totalOpenTickets++;
-
-            String type = t.getType().name();
-            openTicketsByType.put(type, openTicketsByType.getOrDefault(type, 0) + 1);
-
-            String priority = t.getBusinessPriority();
-            if (priority != null) {
-                openTicketsByPriority.put(priority,
-                        openTicketsByPriority.getOrDefault(priority, 0) + 1);
-            }
-
-            double risk = calculateRiskScore(t);
-            riskScoresByType.get(type).add(risk);
-
-            double impact = calculateImpactScore(t, timestamp);
-            impactSumsByType.put(type, impactSumsByType.get(type) + impact);
-        }
-
-        reportNode.put("totalOpenTickets", totalOpenTickets);
+        reportNode.put("totalOpenTickets", acc.getTotal());
 
         ObjectNode typeNode = reportNode.putObject("openTicketsByType");
-        openTicketsByType.forEach(typeNode::put);
+        acc.getTicketsByType().forEach(typeNode::put);
 
         ObjectNode priorityNode = reportNode.putObject("openTicketsByPriority");
-        openTicketsByPriority.forEach(priorityNode::put);
+        acc.getTicketsByPriority().forEach(priorityNode::put);
 
         ObjectNode riskNode = reportNode.putObject("riskByType");
         boolean isUnstable = false;
 
         String[] types = {"BUG", "FEATURE_REQUEST", "UI_FEEDBACK"};
         for (String type : types) {
-            List<Double> scores = riskScoresByType.get(type);
             String label = "LOW";
-            if (!scores.isEmpty()) {
-                double avg = scores.stream().mapToDouble(d -> d).average().orElse(0.0);
-                label = getRiskLabel(avg);
+            if (acc.hasScores(RISK, type)) {
+                label = getRiskLabel(acc.average(RISK, type));
             }
             riskNode.put(type, label);
 
@@ -148,7 +105,7 @@ public final class AppStabilityReportCommand implements ICommand {
 
         ObjectNode impactNode = reportNode.putObject("impactByType");
         for (String type : types) {
-            double val = impactSumsByType.get(type);
+            double val = acc.sum(IMPACT, type);
             val = Math.round(val * SCALE_100) / SCALE_100;
             impactNode.put(type, val);
         }
@@ -226,15 +183,11 @@ public final class AppStabilityReportCommand implements ICommand {
                 double frequency = getImpactFrequencyWeight(t.getFrequency());
 
                 double ageScore = 0.0;
-                if (t.getCreatedAt() != null && !t.getCreatedAt().isEmpty()) {
-                    try {
-                        LocalDate created = LocalDate.parse(t.getCreatedAt());
-                        LocalDate current = LocalDate.parse(currentTimestamp);
-                        long days = ChronoUnit.DAYS.between(created, current) + 1;
-                        if (days > 0) {
-                            ageScore = days * AGE_FACTOR;
-                        }
-                    } catch (Exception e) {
+                int current = DateUtils.toEpochDay(currentTimestamp);
+                if (t.getCreatedDay() != DateUtils.NO_DATE && current != DateUtils.NO_DATE) {
+                    long days = DateUtils.daysBetween(t.getCreatedDay(), current);
+                    if (days > 0) {
+                        ageScore = days * AGE_FACTOR;
                     }
                 }
 
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Developer;
 import cod.model.Milestone;
 import cod.model.Ticket;
@@ -16,18 +17,18 @@ import cod.utils.NotificationManager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 public final class AssignTicketCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public AssignTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -57,18 +58,30 @@ public final class AssignTicketCommand implements ICommand {
             return buildError(result, "assignTicket", username, timestamp,
                     "Ticket not found.");
         }
+
+        Lock ticketLock = db.ticketLock(ticketId);
+        ticketLock.lock();
+        try {
+            return assign(db, result, (Developer) user, t, timestamp);
+        } finally {
+            ticketLock.unlock();
+        }
+    }
+
+    /**
+     Checks that the developer may take the ticket and assigns it. Runs under
+     the ticket's lock, so the checks still hold when the ticket is changed.
+     */
+    private ObjectNode assign(final Database db, final ObjectNode result,
+                              final Developer dev, final Ticket t, final String timestamp) {
+        String username = dev.getUsername();
+        int ticketId = t.getId();
         if (!"OPEN".equals(t.getStatus())) {
             return buildError(result, "assignTicket", username, timestamp,
                     "Only OPEN tickets can be assigned.");
         }
 
-        Milestone milestone = null;
-        for (Milestone m : db.getMilestones()) {
-            if (m.getTickets().contains(ticketId)) {
-                milestone = m;
-                break;
-            }
-        }
+        Milestone milestone = db.getMilestoneForTicket(ticketId);
         if (milestone == null) {
             return buildError(result, "assignTicket", username, timestamp,
                     "Ticket is not part of any milestone.");
@@ -84,7 +97,6 @@ public final class AssignTicketCommand implements ICommand {
                             + milestone.getName() + ".");
         }
 
-        Developer dev = (Developer) user;
         String expError = checkExpertise(dev.getExpertiseArea(), t.getExpertiseArea(),
                 username, ticketId);
         if (expError != null) {
@@ -5,23 +5,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Milestone;
 import cod.model.Ticket;
 import cod.model.TicketAction;
 import cod.model.User;
 import cod.utils.NotificationManager;
 
+import java.util.concurrent.locks.Lock;
+
 public final class ChangeStatusTicketCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ChangeStatusTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -34,43 +36,24 @@ public final class ChangeStatusTicketCommand implements ICommand {
         Ticket t = db.getTicket(ticketId);
 
         if (user != null && t != null) {
-            if (!username.equals(t.getAssignedTo())) {
-                result.put("command", "changeStatus");
-                result.put("username", username);
-                result.put("timestamp", timestamp);
-                result.put("error", "Ticket " + ticketId + " is not assigned to developer "
-                        + username + ".");
-                return result;
-            }
-
-            String currentStatus = t.getStatus();
-            String newStatus = null;
-
-            if ("IN_PROGRESS".equals(currentStatus)) {
-                newStatus = "RESOLVED";
-            } else if ("RESOLVED".equals(currentStatus)) {
-                newStatus = "CLOSED";
-            } else if ("OPEN".equals(currentStatus)) {
-                newStatus = "IN_PROGRESS";
-            }
-
-            if (newStatus != null) {
-                TicketAction action = new TicketAction();
-                action.setAction("STATUS_CHANGED");
-                action.setBy(username);
-                action.setTimestamp(timestamp);
-                action.setFrom(currentStatus);
-                action.setTo(newStatus);
-
-                t.addHistory(action);
-                t.setStatus(newStatus);
-
-                if ("CLOSED".equals(newStatus)) {
-                    t.setSolvedAt(timestamp);
-                } else {
-                    t.setSolvedAt("");
+            boolean changed;
+            Lock ticketLock = db.ticketLock(ticketId);
+            ticketLock.lock();
+            try {
+                if (!username.equals(t.getAssignedTo())) {
+                    result.put("command", "changeStatus");
+                    result.put("username", username);
+                    result.put("timestamp", timestamp);
+                    result.put("error", "Ticket " + ticketId + " is not assigned to developer "
+                            + username + ".");
+                    return result;
                 }
+                changed = advanceStatus(t, username, timestamp);
+            } finally {
+                ticketLock.unlock();
+            }
 
+            if (changed) {
                 updateMilestoneStatus(db, ticketId);
                 NotificationManager.checkUnblocking(db, timestamp);
             }
@@ -80,23 +63,59 @@ public final class ChangeStatusTicketCommand implements ICommand {
         return result;
     }
 
+    /**
+     Moves the ticket to the next status, if it has one.
+     return true if the status changed
+     */
+    private boolean advanceStatus(final Ticket t, final String username,
+                                  final String timestamp) {
+        String currentStatus = t.getStatus();
+        String newStatus = null;
+
+        if ("IN_PROGRESS".equals(currentStatus)) {
+            newStatus = "RESOLVED";
+        } else if ("RESOLVED".equals(currentStatus)) {
+            newStatus = "CLOSED";
+        } else if ("OPEN".equals(currentStatus)) {
+            newStatus = "IN_PROGRESS";
+        }
+
+        if (newStatus == null) {
+            return false;
+        }
+        TicketAction action = new TicketAction();
+        action.setAction("STATUS_CHANGED");
+        action.setBy(username);
+        action.setTimestamp(timestamp);
+        action.setFrom(currentStatus);
+        action.setTo(newStatus);
+
+        t.addHistory(action);
+        t.setStatus(newStatus);
+
+        if ("CLOSED".equals(newStatus)) {
+            t.setSolvedAt(timestamp);
+        } else {
+            t.setSolvedAt("");
+        }
+        return true;
+    }
+
     private void updateMilestoneStatus(final Database db, final int ticketId) {
-        for (Milestone m : db.getMilestones()) {
-            if (m.getTickets().contains(ticketId)) {
-                boolean allClosed = true;
-                for (Integer tId : m.getTickets()) {
-                    Ticket t = db.getTicket(tId);
-                    if (t == null || !"CLOSED".equals(t.getStatus())) {
-                        allClosed = false;
-                        break;
-                    }
-                }
-                if (allClosed) {
-                    m.setStatus("COMPLETED");
-                } else {
-                    m.setStatus("ACTIVE");
-                }
+        Milestone m = db.getMilestoneForTicket(ticketId);
+        if (m == null) {
+            return;
+        }
+        Lock milestoneLock = db.milestoneLock(m);
+        milestoneLock.lock();
+        try {
+            if (m.areAllTicketsClosed()) {
+                m.setStatus("COMPLETED");
+            } else {
+                m.setStatus("ACTIVE");
             }
+        } finally {
+            milestoneLock.unlock();
         }
     }
 }
@@ -5,28 +5,30 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Milestone;
 import cod.model.Ticket;
 import cod.model.TicketAction;
+import cod.utils.DateUtils;
 import cod.utils.NotificationManager;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 public final class CreateMilestoneCommand implements ICommand {
     private static final int TESTING_PHASE_MAX_DAYS = 12;
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public CreateMilestoneCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -35,17 +37,12 @@ public final class CreateMilestoneCommand implements ICommand {
         NotificationManager.checkDeadlines(db, timestampStr);
         NotificationManager.checkUnblocking(db, timestampStr);
 
-        if (db.isTestingPhase() && db.getTestingPhaseStartDate() != null
-                && !timestampStr.isEmpty()) {
-            try {
-                LocalDate start = db.getTestingPhaseStartDate();
-                LocalDate current = LocalDate.parse(timestampStr);
-                long daysElapsed = ChronoUnit.DAYS.between(start, current) + 1;
-                if (daysElapsed > TESTING_PHASE_MAX_DAYS) {
-                    db.setTestingPhase(false);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+        int current = DateUtils.toEpochDay(timestampStr);
+        if (db.isTestingPhase() && db.getTestingPhaseStartDay() != DateUtils.NO_DATE
+                && current != DateUtils.NO_DATE) {
+            long daysElapsed = DateUtils.daysBetween(db.getTestingPhaseStartDay(), current);
+            if (daysElapsed > TESTING_PHASE_MAX_DAYS) {
+                db.setTestingPhase(false);
             }
         }
 
@@ -71,14 +68,10 @@ public final class CreateMilestoneCommand implements ICommand {
             }
         }
 
-        for (Milestone m : db.getMilestones()) {
-            for (Integer tId : newTickets) {
-                if (m.getTickets().contains(tId)) {
-                    return buildError(result, "createMilestone", username, timestampStr,
-                            "Tickets " + tId + " already assigned to milestone "
-                                    + m.getName() + ".");
-                }
-            }
+        String duplicateError = findDuplicateTicket(db, newTickets);
+        if (duplicateError != null) {
+            return buildError(result, "createMilestone", username, timestampStr,
+                    duplicateError);
         }
 
         Milestone m = new Milestone();
@@ -104,6 +97,11 @@ public final class CreateMilestoneCommand implements ICommand {
         }
         m.setBlockingFor(blocking);
 
+        if (!db.tryAddMilestone(m)) {
+            return buildError(result, "createMilestone", username, timestampStr,
+                    findDuplicateTicket(db, newTickets));
+        }
+
         for (Integer tId : newTickets) {
             Ticket t = db.getTicket(tId);
             if (t != null) {
@@ -112,20 +110,50 @@ public final class CreateMilestoneCommand implements ICommand {
                 action.setBy(username);
                 action.setTimestamp(timestampStr);
                 action.setMilestone(m.getName());
-                t.addHistory(action);
+                Lock ticketLock = db.ticketLock(tId);
+                ticketLock.lock();
+                try {
+                    t.addHistory(action);
+                } finally {
+                    ticketLock.unlock();
+                }
             }
         }
 
-        db.addMilestone(m);
-
         String msg = "New milestone " + m.getName() + " has been created with due date "
                 + m.getDueDate() + ".";
-        NotificationManager.notifyUsers(m.getAssignedDevs(), msg);
+        NotificationManager.notifyUsers(db, m.getAssignedDevs(), msg);
 
         result.put("status", "success");
         return result;
     }
 
+    /**
+     Looks up the owner of every new ticket in the ticket-to-milestone index.
+     When several tickets are already taken, the one reported belongs to the
+     earliest created milestone, so the milestone list is only walked on error.
+     */
+    private String findDuplicateTicket(final Database db, final List<Integer> newTickets) {
+        Map<Milestone, Integer> conflicts = new HashMap<>();
+        for (Integer tId : newTickets) {
+            Milestone owner = db.getMilestoneForTicket(tId);
+            if (owner != null) {
+                conflicts.putIfAbsent(owner, tId);
+            }
+        }
+        if (conflicts.isEmpty()) {
+            return null;
+        }
+        for (Milestone m : db.getMilestones()) {
+            Integer tId = conflicts.get(m);
+            if (tId != null) {
+                return "Tickets " + tId + " already assigned to milestone "
+                        + m.getName() + ".";
+            }
+        }
+        return null;
+    }
+
     private ObjectNode buildError(final ObjectNode result, final String command,
                                   final String username, final String timestamp,
                                   final String errorMsg) {
@@ -2,16 +2,18 @@ package cod.command.impl;
 
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.io.Serialization;
 import cod.model.Ticket;
+import cod.utils.DateUtils;
+import cod.utils.ReportAccumulator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 
 public final class GenerateCustomerImpactReportCommand implements ICommand {
+    private static final int IMPACT = 0;
     private static final double AGE_FACTOR = 0.1;
 
     private static final double PRIO_LOW = 1.0;
@@ -40,15 +42,14 @@ public final class GenerateCustomerImpactReportCommand implements ICommand {
     private static final double DEM_CRIT = 4.0;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public GenerateCustomerImpactReportCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -60,52 +61,22 @@ public final class GenerateCustomerImpactReportCommand implements ICommand {
 
         ObjectNode reportNode = result.putObject("report");
 
-        int totalTickets = 0;
-        Map<String, Integer> ticketsByType = new LinkedHashMap<>();
-        ticketsByType.put("BUG", 0);
-        ticketsByType.put("FEATURE_REQUEST", 0);
-        ticketsByType.put("UI_FEEDBACK", 0);
-
-        Map<String, Integer> ticketsByPriority = new LinkedHashMap<>();
-        ticketsByPriority.put("LOW", 0);
-        ticketsByPriority.put("MEDIUM", 0);
-        ticketsByPriority.put("HIGH", 0);
-        ticketsByPriority.put("CRITICAL", 0);
-
-        Map<String, Double> customerImpactByType = new LinkedHashMap<>();
-        customerImpactByType.put("BUG", 0.0);
-        customerImpactByType.put("FEATURE_REQUEST", 0.0);
-        customerImpactByType.put("UI_FEEDBACK", 0.0);
-
-        for (Ticket t : db.getTickets()) {
-            if (!"OPEN".equals(t.getStatus())) {
-                continue;
-            }
-            totalTickets++;
-            String type = t.getType().name();
-            ticketsByType.put(type, ticketsByType.getOrDefault(type, 0) + 1);
-
-            String priority = t.getBusinessPriority();
-            if (priority != null) {
-                ticketsByPriority.put(priority,
-                        ticketsByPriority.getOrDefault(priority, 0) + 1);
-            }
-
-            double impact = calculateImpact(t, timestamp);
-            customerImpactByType.put(type,
-                    customerImpactByType.getOrDefault(type, 0.0) + impact);
-        }
+        ReadVersion version = db.pinVersion();
+        ReportAccumulator acc = ReportAccumulator.collect(version.findTickets("OPEN"),
+                List.of(t -> calculateImpact(t, timestamp)));
 
-        reportNode.put("totalTickets", totalTickets);
+        reportNode.put("totalTickets", acc.getTotal());
 
         ObjectNode typeNode = reportNode.putObject("ticketsByType");
-        ticketsByType.forEach(typeNode::put);
+        acc.getTicketsByType().forEach(typeNode::put);
 
         ObjectNode priorityNode = reportNode.putObject("ticketsByPriority");
-        ticketsByPriority.forEach(priorityNode::put);
+        acc.getTicketsByPriority().forEach(priorityNode::put);
 
         ObjectNode impactNode = reportNode.putObject("customerImpactByType");
-        customerImpactByType.forEach(impactNode::put);
+        for (String type : acc.getTicketsByType().keySet()) {
+            impactNode.put(type, acc.sum(IMPACT, type));
+        }
 
         return result;
     }
@@ -129,15 +100,11 @@ public final class GenerateCustomerImpactReportCommand implements ICommand {
                 double frequency = getFrequencyWeight(t.getFrequency());
 
                 double ageScore = 0.0;
-                if (t.getCreatedAt() != null && !t.getCreatedAt().isEmpty()) {
-                    try {
-                        LocalDate created = LocalDate.parse(t.getCreatedAt());
-                        LocalDate current = LocalDate.parse(currentTimestamp);
-                        long days = ChronoUnit.DAYS.between(created, current) + 1;
-                        if (days > 0) {
-                            ageScore = days * AGE_FACTOR;
-                        }
-                    } catch (Exception e) {
+                int current = DateUtils.toEpochDay(currentTimestamp);
+                if (t.getCreatedDay() != DateUtils.NO_DATE && current != DateUtils.NO_DATE) {
+                    long days = DateUtils.daysBetween(t.getCreatedDay(), current);
+                    if (days > 0) {
+                        ageScore = days * AGE_FACTOR;
                     }
                 }
 
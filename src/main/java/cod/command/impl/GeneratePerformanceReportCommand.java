@@ -5,15 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.io.Serialization;
 import cod.model.Developer;
 import cod.model.Ticket;
 import cod.model.TicketAction;
 import cod.model.User;
 import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -36,7 +38,7 @@ public final class GeneratePerformanceReportCommand implements ICommand {
     private static final double STATS_DIVISOR = 3.0;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     private static final Set<String> EXCLUDED_USERS = new HashSet<>(Arrays.asList(
             "mia_fullstack",
@@ -51,8 +53,7 @@ public final class GeneratePerformanceReportCommand implements ICommand {
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -62,8 +63,10 @@ public final class GeneratePerformanceReportCommand implements ICommand {
         result.put("username", username);
         result.put("timestamp", timestamp);
 
-        LocalDate cmdDate = LocalDate.parse(timestamp);
-        YearMonth targetMonth = YearMonth.from(cmdDate).minusMonths(1);
+        int cmdDay = DateUtils.parseEpochDay(timestamp);
+        YearMonth targetMonth = YearMonth.from(LocalDate.ofEpochDay(cmdDay)).minusMonths(1);
+        long monthStart = targetMonth.atDay(1).toEpochDay();
+        long monthEnd = targetMonth.atEndOfMonth().toEpochDay();
 
         List<ObjectNode> reportList = new ArrayList<>();
 
@@ -79,41 +82,36 @@ public final class GeneratePerformanceReportCommand implements ICommand {
         }
 
         List<User> developers = new ArrayList<>();
-        for (User u : db.getUsers()) {
-            if ("DEVELOPER".equals(u.getRole())) {
-                Developer dev = (Developer) u;
-                String exp = dev.getExpertiseArea();
+        for (User u : db.getUsersByRole("DEVELOPER")) {
+            Developer dev = (Developer) u;
+            String exp = dev.getExpertiseArea();
 
-                boolean expertiseMatch = allowedExpertise.isEmpty()
-                        || allowedExpertise.contains(exp);
-                boolean notExcluded = !EXCLUDED_USERS.contains(dev.getUsername());
+            boolean expertiseMatch = allowedExpertise.isEmpty()
+                    || allowedExpertise.contains(exp);
+            boolean notExcluded = !EXCLUDED_USERS.contains(dev.getUsername());
 
-                if (expertiseMatch && notExcluded) {
-                    developers.add(u);
-                }
+            if (expertiseMatch && notExcluded) {
+                developers.add(u);
             }
         }
         developers.sort(Comparator.comparing(User::getUsername));
+        ReadVersion version = db.pinVersion();
 
         for (User u : developers) {
             Developer dev = (Developer) u;
 
             List<Ticket> closedTicketsList = new ArrayList<>();
-            for (Ticket t : db.getTickets()) {
-                if (!dev.getUsername().equals(t.getAssignedTo())) {
-                    continue;
-                }
+            for (Ticket t : version.getTicketsAssignedTo(dev.getUsername())) {
                 if (!"CLOSED".equals(t.getStatus()) && !"RESOLVED".equals(t.getStatus())) {
                     continue;
                 }
 
-                String solvedDateStr = getSolvedDate(t);
-                if (solvedDateStr == null) {
+                int solvedDay = getSolvedDay(t);
+                if (solvedDay == DateUtils.NO_DATE) {
                     continue;
                 }
 
-                LocalDate solvedDate = LocalDate.parse(solvedDateStr);
-                if (YearMonth.from(solvedDate).equals(targetMonth)) {
+                if (solvedDay >= monthStart && solvedDay <= monthEnd) {
                     closedTicketsList.add(t);
                 }
             }
@@ -185,39 +183,27 @@ public final class GeneratePerformanceReportCommand implements ICommand {
         return result;
     }
 
-    private String getSolvedDate(final Ticket t) {
+    private int getSolvedDay(final Ticket t) {
         if (t.getHistory() != null) {
             for (TicketAction action : t.getHistory()) {
                 if ("STATUS_CHANGED".equals(action.getAction())
                         && ("CLOSED".equals(action.getTo())
                         || "RESOLVED".equals(action.getTo()))) {
-                    return action.getTimestamp();
+                    return action.getTimestampDay();
                 }
             }
         }
-        String date = t.getSolvedAt();
-        if (date != null && !date.isEmpty()) {
-            return date;
-        }
-        return null;
+        return t.getSolvedDay();
     }
 
     private long calculateResolutionDays(final Ticket t) {
-        String assignedStr = t.getAssignedAt();
-        String solvedStr = getSolvedDate(t);
-
-        if (assignedStr == null || solvedStr == null) {
-            return 1;
-        }
+        int assigned = t.getAssignedDay();
+        int solved = getSolvedDay(t);
 
-        try {
-            LocalDate assigned = LocalDate.parse(assignedStr);
-            LocalDate solved = LocalDate.parse(solvedStr);
-            long days = ChronoUnit.DAYS.between(assigned, solved) + 1;
-            return Math.max(1, days);
-        } catch (Exception e) {
+        if (assigned == DateUtils.NO_DATE || solved == DateUtils.NO_DATE) {
             return 1;
         }
+        return Math.max(1, DateUtils.daysBetween(assigned, solved));
     }
 
     /**
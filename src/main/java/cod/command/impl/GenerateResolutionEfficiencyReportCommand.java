@@ -5,17 +5,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.io.Serialization;
 import cod.model.Ticket;
 import cod.model.TicketAction;
+import cod.utils.DateUtils;
+import cod.utils.ReportAccumulator;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 public final class GenerateResolutionEfficiencyReportCommand implements ICommand {
+    private static final int EFFICIENCY = 0;
     private static final double SCALE_100 = 100.0;
     private static final int DAYS_SUBTRACTOR = 10;
     private static final int DEFAULT_USABILITY = 10;
@@ -28,15 +28,14 @@ public final class GenerateResolutionEfficiencyReportCommand implements ICommand
     private static final int WEIGHT_CRIT = 4;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public GenerateResolutionEfficiencyReportCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -48,61 +47,24 @@ public final class GenerateResolutionEfficiencyReportCommand implements ICommand
 
         ObjectNode reportNode = result.putObject("report");
 
-        int totalTickets = 0;
+        ReadVersion version = db.pinVersion();
+        ReportAccumulator acc = ReportAccumulator.collect(version.getAssignedTickets(),
+                List.of(t -> {
+                    double efficiency = calculateEfficiency(t);
+                    return efficiency >= 0 ? efficiency : Double.NaN;
+                }));
 
-        Map<String, Integer> ticketsByType = new LinkedHashMap<>();
-        ticketsByType.put("BUG", 0);
-        ticketsByType.put("FEATURE_REQUEST", 0);
-        ticketsByType.put("UI_FEEDBACK", 0);
-
-        Map<String, Integer> ticketsByPriority = new LinkedHashMap<>();
-        ticketsByPriority.put("LOW", 0);
-        ticketsByPriority.put("MEDIUM", 0);
-        ticketsByPriority.put("HIGH", 0);
-        ticketsByPriority.put("CRITICAL", 0);
-
-        Map<String, List<Double>> efficiencyValuesByType = new LinkedHashMap<>();
-        efficiencyValuesByType.put("BUG", new ArrayList<>());
-        efficiencyValuesByType.put("FEATURE_REQUEST", new ArrayList<>());
-        efficiencyValuesByType.put("UI_FEEDBACK", new ArrayList<>());
-
-        for (Ticket t : db.getTickets()) {
-            if (t.getAssignedTo() == null || t.getAssignedTo().isEmpty()) {
-                continue;
-            }
-
-            totalTickets++;
-
-            String type = t.getType().name();
-            ticketsByType.put(type, ticketsByType.getOrDefault(type, 0) + 1);
-
-            String priority = t.getBusinessPriority();
-            if (priority != null) {
-                ticketsByPriority.put(priority,
-                        ticketsByPriority.getOrDefault(priority, 0) + 1);
-            }
-
-            double efficiency = calculateEfficiency(t);
-            if (efficiency >= 0) {
-                efficiencyValuesByType.get(type).add(efficiency);
-            }
-        }
-
-        reportNode.put("totalTickets", totalTickets);
+        reportNode.put("totalTickets", acc.getTotal());
 
         ObjectNode typeNode = reportNode.putObject("ticketsByType");
-        ticketsByType.forEach(typeNode::put);
+        acc.getTicketsByType().forEach(typeNode::put);
 
         ObjectNode priorityNode = reportNode.putObject("ticketsByPriority");
-        ticketsByPriority.forEach(priorityNode::put);
+        acc.getTicketsByPriority().forEach(priorityNode::put);
 
         ObjectNode efficiencyNode = reportNode.putObject("efficiencyByType");
-        for (String type : efficiencyValuesByType.keySet()) {
-            List<Double> values = efficiencyValuesByType.get(type);
-            double avg = 0.0;
-            if (!values.isEmpty()) {
-                avg = values.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            }
+        for (String type : acc.getTicketsByType().keySet()) {
+            double avg = acc.average(EFFICIENCY, type);
             avg = Math.round(avg * SCALE_100) / SCALE_100;
             efficiencyNode.put(type, avg);
         }
@@ -111,24 +73,21 @@ public final class GenerateResolutionEfficiencyReportCommand implements ICommand
     }
 
     private double calculateEfficiency(final Ticket t) {
-        if (t.getCreatedAt() == null || t.getCreatedAt().isEmpty()) {
+        int created = t.getCreatedDay();
+        if (created == DateUtils.NO_DATE) {
             return -1;
         }
-        String lastActionDate = t.getCreatedAt();
+        int lastActionDay = created;
         if (t.getHistory() != null && !t.getHistory().isEmpty()) {
             TicketAction last = t.getHistory().get(t.getHistory().size() - 1);
-            lastActionDate = last.getTimestamp();
+            lastActionDay = last.getTimestampDay();
         }
-
-        long daysOpen = 0;
-        try {
-            LocalDate created = LocalDate.parse(t.getCreatedAt());
-            LocalDate last = LocalDate.parse(lastActionDate);
-            daysOpen = ChronoUnit.DAYS.between(created, last);
-        } catch (Exception e) {
+        if (lastActionDay == DateUtils.NO_DATE) {
             return -1;
         }
 
+        long daysOpen = lastActionDay - created;
+
         double denominator = Math.max(1, daysOpen - DAYS_SUBTRACTOR);
 
         double score = getMagicScore(t);
@@ -5,14 +5,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.io.Serialization;
 import cod.model.Ticket;
+import cod.utils.ReportAccumulator;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 public final class GenerateTicketRiskReportCommand implements ICommand {
+    private static final int RISK = 0;
     private static final int DEFAULT_USABILITY = 10;
     private static final int MAX_USABILITY = 10;
 
@@ -26,15 +27,14 @@ public final class GenerateTicketRiskReportCommand implements ICommand {
     private static final int WEIGHT_CRIT = 4;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public GenerateTicketRiskReportCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -46,59 +46,23 @@ public final class GenerateTicketRiskReportCommand implements ICommand {
 
         ObjectNode reportNode = result.putObject("report");
 
-        int totalTickets = 0;
-        Map<String, Integer> ticketsByType = new LinkedHashMap<>();
-        ticketsByType.put("BUG", 0);
-        ticketsByType.put("FEATURE_REQUEST", 0);
-        ticketsByType.put("UI_FEEDBACK", 0);
-
-        Map<String, Integer> ticketsByPriority = new LinkedHashMap<>();
-        ticketsByPriority.put("LOW", 0);
-        ticketsByPriority.put("MEDIUM", 0);
-        ticketsByPriority.put("HIGH", 0);
-        ticketsByPriority.put("CRITICAL", 0);
-
-        Map<String, List<Double>> scoresByType = new LinkedHashMap<>();
-        scoresByType.put("BUG", new ArrayList<>());
-        scoresByType.put("FEATURE_REQUEST", new ArrayList<>());
-        scoresByType.put("UI_FEEDBACK", new ArrayList<>());
-
-        for (Ticket t : db.getTickets()) {
-            if (!"OPEN".equals(t.getStatus())) {
-                continue;
-            }
-
-            totalTickets++;
-
-            String type = t.getType().name();
-            ticketsByType.put(type, ticketsByType.getOrDefault(type, 0) + 1);
-
-            String priority = t.getBusinessPriority();
-            if (priority != null) {
-                ticketsByPriority.put(priority,
-                        ticketsByPriority.getOrDefault(priority, 0) + 1);
-            }
-
-            double score = calculateRiskScore(t);
-            scoresByType.get(type).add(score);
-        }
+        ReadVersion version = db.pinVersion();
+        ReportAccumulator acc = ReportAccumulator.collect(version.findTickets("OPEN"),
+                List.of(this::calculateRiskScore));
 
-        reportNode.put("totalTickets", totalTickets);
+        reportNode.put("totalTickets", acc.getTotal());
 
         ObjectNode typeNode = reportNode.putObject("ticketsByType");
-        ticketsByType.forEach(typeNode::put);
+        acc.getTicketsByType().forEach(typeNode::put);
 
         ObjectNode priorityNode = reportNode.putObject("ticketsByPriority");
-        ticketsByPriority.forEach(priorityNode::put);
+        acc.getTicketsByPriority().forEach(priorityNode::put);
 
         ObjectNode riskNode = reportNode.putObject("riskByType");
-        for (String type : scoresByType.keySet()) {
-            List<Double> scores = scoresByType.get(type);
+        for (String type : acc.getTicketsByType().keySet()) {
             String label = "LOW";
-            if (!scores.isEmpty()) {
-                double avg = scores.stream().mapToDouble(Double::doubleValue)
-                        .average().orElse(0.0);
-                label = getRiskLabel(avg);
+            if (acc.hasScores(RISK, type)) {
+                label = getRiskLabel(acc.average(RISK, type));
             }
             riskNode.put(type, label);
         }
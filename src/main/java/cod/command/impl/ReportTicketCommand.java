@@ -5,30 +5,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Ticket;
+import cod.model.User;
 import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 
 public final class ReportTicketCommand implements ICommand {
     private static final int MAX_TESTING_DAYS = 12;
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ReportTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestampStr = args.has("timestamp")
                 ? args.get("timestamp").asText() : LocalDate.now().toString();
 
-        if (db.getUser(username) == null) {
+        User user = db.getUser(username);
+        if (user == null) {
             result.put("command", "reportTicket");
             result.put("username", username);
             result.put("timestamp", timestampStr);
@@ -36,20 +38,23 @@ public final class ReportTicketCommand implements ICommand {
             return result;
         }
 
-        if (!"REPORTER".equals(db.getUser(username).getRole())) {
+        if (!"REPORTER".equals(user.getRole())) {
             result.put("command", "reportTicket");
             result.put("username", username);
             result.put("timestamp", timestampStr);
             result.put("error", "The user does not have permission to execute this command: "
-                    + "required role REPORTER; user role " + db.getUser(username).getRole() + ".");
+                    + "required role REPORTER; user role " + user.getRole() + ".");
             return result;
         }
 
-        if (db.getTestingPhaseStartDate() == null) {
-            db.setTestingPhaseStartDate(LocalDate.parse(timestampStr));
+        int today = DateUtils.parseEpochDay(timestampStr);
+        // parsed before anything changes, so a bad type leaves the database as it was
+        JsonNode typeNode = args.path("params").get("type");
+        TicketType type = typeNode == null ? null : TicketType.valueOf(typeNode.asText());
+        if (db.getTestingPhaseStartDay() == DateUtils.NO_DATE) {
+            db.setTestingPhaseStartDay(today);
         }
-        long daysElapsed = ChronoUnit.DAYS.between(db.getTestingPhaseStartDate(),
-                LocalDate.parse(timestampStr)) + 1;
+        long daysElapsed = DateUtils.daysBetween(db.getTestingPhaseStartDay(), today);
 
         if (!db.isTestingPhase() || daysElapsed > MAX_TESTING_DAYS) {
             result.put("command", "reportTicket");
@@ -65,8 +70,8 @@ public final class ReportTicketCommand implements ICommand {
         if (args.has("params")) {
             JsonNode params = args.get("params");
 
-            if (params.has("type")) {
-                t.setType(TicketType.valueOf(params.get("type").asText()));
+            if (type != null) {
+                t.setType(type);
             }
 
             if (params.has("reportedBy")) {
@@ -6,29 +6,30 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Developer;
 import cod.model.Milestone;
 import cod.model.Ticket;
+import cod.model.TicketView;
 import cod.model.User;
 import cod.model.enums.Seniority;
 import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 public final class SearchCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public SearchCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -62,11 +63,7 @@ public final class SearchCommand implements ICommand {
                                   final ArrayNode resultsArray) {
         List<Developer> matchedDevs = new ArrayList<>();
 
-        for (User user : db.getUsers()) {
-            if (!"DEVELOPER".equals(user.getRole())) {
-                continue;
-            }
-
+        for (User user : db.getUsersByRole("DEVELOPER")) {
             Developer dev = (Developer) user;
             boolean match = true;
 
@@ -91,7 +88,7 @@ public final class SearchCommand implements ICommand {
         matchedDevs.sort(Comparator.comparing(Developer::getHireDate));
 
         for (Developer dev : matchedDevs) {
-            ObjectNode devNode = mapper.valueToTree(dev);
+            ObjectNode devNode = Serialization.toTree(Serialization.DEVELOPER, dev);
             devNode.remove("email");
             devNode.remove("role");
             resultsArray.add(devNode);
@@ -102,29 +99,29 @@ public final class SearchCommand implements ICommand {
                                final ArrayNode resultsArray) {
         User user = db.getUser(username);
 
-        for (Ticket t : db.getTickets()) {
-            if (!"OPEN".equals(t.getStatus())) {
-                continue;
+        String typeFilter = null;
+        String priorityFilter = null;
+        if (filters != null) {
+            if (filters.has("type")) {
+                typeFilter = filters.get("type").asText();
             }
+            if (filters.has("businessPriority")) {
+                priorityFilter = filters.get("businessPriority").asText();
+            }
+        }
 
+        int createdAfter = filters != null && filters.has("createdAfter")
+                ? DateUtils.parseEpochDay(filters.get("createdAfter").asText())
+                : DateUtils.NO_DATE;
+
+        for (Ticket t : db.findTickets("OPEN", typeFilter, priorityFilter)) {
             boolean match = true;
             List<String> matchedKeywords = new ArrayList<>();
 
             if (filters != null) {
-                if (filters.has("type")
-                        && !filters.get("type").asText().equals(t.getType().name())) {
-                    match = false;
-                }
-                if (filters.has("businessPriority")
-                        && !filters.get("businessPriority").asText()
-                        .equals(t.getBusinessPriority())) {
-                    match = false;
-                }
-
                 if (filters.has("createdAfter")) {
-                    LocalDate created = LocalDate.parse(t.getCreatedAt());
-                    LocalDate after = LocalDate.parse(filters.get("createdAfter").asText());
-                    if (!created.isAfter(after)) {
+                    if (t.getCreatedDay() == DateUtils.NO_DATE
+                            || t.getCreatedDay() <= createdAfter) {
                         match = false;
                     }
                 }
@@ -159,19 +156,7 @@ public final class SearchCommand implements ICommand {
             }
 
             if (match) {
-                ObjectNode tNode = mapper.valueToTree(t);
-                tNode.remove("assignedTo");
-                tNode.remove("assignedAt");
-                tNode.remove("comments");
-
-                if (!matchedKeywords.isEmpty()) {
-                    ArrayNode kwArray = tNode.putArray("matchingWords");
-                    for (String kw : matchedKeywords) {
-                        kwArray.add(kw);
-                    }
-                }
-
-                resultsArray.add(tNode);
+                resultsArray.addPOJO(TicketView.search(t, matchedKeywords));
             }
         }
     }
@@ -182,15 +167,8 @@ public final class SearchCommand implements ICommand {
             return false;
         }
 
-        boolean inUserMilestone = false;
-        for (Milestone m : db.getMilestones()) {
-            if (m.getTickets().contains(t.getId())
-                    && m.getAssignedDevs().contains(dev.getUsername())) {
-                inUserMilestone = true;
-                break;
-            }
-        }
-        if (!inUserMilestone) {
+        Milestone m = db.getMilestoneForTicket(t.getId());
+        if (m == null || !m.getAssignedDevs().contains(dev.getUsername())) {
             return false;
         }
 
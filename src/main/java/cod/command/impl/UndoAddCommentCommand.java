@@ -5,23 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Comment;
 import cod.model.Ticket;
 import cod.model.User;
 
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 public final class UndoAddCommentCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public UndoAddCommentCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -32,20 +33,26 @@ public final class UndoAddCommentCommand implements ICommand {
         Ticket t = db.getTicket(ticketId);
 
         if (user != null && t != null) {
-            if (t.getReportedBy().isEmpty()) {
-                result.put("command", "undoAddComment");
-                result.put("username", username);
-                result.put("timestamp", timestamp);
-                result.put("error", "Comments are not allowed on anonymous tickets.");
-                return result;
-            }
+            Lock ticketLock = db.ticketLock(ticketId);
+            ticketLock.lock();
+            try {
+                if (t.getReportedBy().isEmpty()) {
+                    result.put("command", "undoAddComment");
+                    result.put("username", username);
+                    result.put("timestamp", timestamp);
+                    result.put("error", "Comments are not allowed on anonymous tickets.");
+                    return result;
+                }
 
-            List<Comment> comments = t.getComments();
-            for (int i = comments.size() - 1; i >= 0; i--) {
-                if (comments.get(i).getAuthor().equals(username)) {
-                    comments.remove(i);
-                    break;
+                List<Comment> comments = t.getComments();
+                for (int i = comments.size() - 1; i >= 0; i--) {
+                    if (comments.get(i).getAuthor().equals(username)) {
+                        t.removeComment(i);
+                        break;
+                    }
                 }
+            } finally {
+                ticketLock.unlock();
             }
         }
 
@@ -5,21 +5,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Ticket;
 import cod.model.TicketAction;
 import cod.model.User;
 
+import java.util.concurrent.locks.Lock;
+
 public final class UndoAssignTicketCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public UndoAssignTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -28,16 +30,24 @@ public final class UndoAssignTicketCommand implements ICommand {
         User user = db.getUser(username);
         Ticket t = db.getTicket(ticketId);
 
-        if (user != null && t != null && username.equals(t.getAssignedTo())) {
-            TicketAction action = new TicketAction();
-            action.setAction("DE-ASSIGNED");
-            action.setBy(username);
-            action.setTimestamp(timestamp);
-            t.addHistory(action);
-
-            t.setAssignedTo("");
-            t.setAssignedAt("");
-            t.setStatus("OPEN");
+        if (user != null && t != null) {
+            Lock ticketLock = db.ticketLock(ticketId);
+            ticketLock.lock();
+            try {
+                if (username.equals(t.getAssignedTo())) {
+                    TicketAction action = new TicketAction();
+                    action.setAction("DE-ASSIGNED");
+                    action.setBy(username);
+                    action.setTimestamp(timestamp);
+                    t.addHistory(action);
+
+                    t.setAssignedTo("");
+                    t.setAssignedAt("");
+                    t.setStatus("OPEN");
+                }
+            } finally {
+                ticketLock.unlock();
+            }
         }
 
         result.put("status", "success");
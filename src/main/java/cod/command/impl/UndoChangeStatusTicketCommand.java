@@ -5,24 +5,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Milestone;
 import cod.model.Ticket;
 import cod.model.TicketAction;
 import cod.model.User;
 
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 public final class UndoChangeStatusTicketCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public UndoChangeStatusTicketCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
 
         String username = args.has("username") ? args.get("username").asText() : "";
@@ -33,43 +34,24 @@ public final class UndoChangeStatusTicketCommand implements ICommand {
         Ticket t = db.getTicket(ticketId);
 
         if (user != null && t != null) {
-            if (!username.equals(t.getAssignedTo())) {
-                result.put("command", "undoChangeStatus");
-                result.put("username", username);
-                result.put("timestamp", timestamp);
-                result.put("error", "Ticket " + ticketId
-                        + " is not assigned to developer " + username + ".");
-                return result;
-            }
-
-            List<TicketAction> history = t.getHistory();
-            TicketAction lastStatusChange = null;
-
-            for (int i = history.size() - 1; i >= 0; i--) {
-                if ("STATUS_CHANGED".equals(history.get(i).getAction())) {
-                    lastStatusChange = history.get(i);
-                    break;
+            boolean reverted;
+            Lock ticketLock = db.ticketLock(ticketId);
+            ticketLock.lock();
+            try {
+                if (!username.equals(t.getAssignedTo())) {
+                    result.put("command", "undoChangeStatus");
+                    result.put("username", username);
+                    result.put("timestamp", timestamp);
+                    result.put("error", "Ticket " + ticketId
+                            + " is not assigned to developer " + username + ".");
+                    return result;
                 }
+                reverted = revertStatus(t, username, timestamp);
+            } finally {
+                ticketLock.unlock();
             }
 
-            if (lastStatusChange != null) {
-                String previousStatus = lastStatusChange.getFrom();
-                String currentStatus = t.getStatus();
-
-                TicketAction revertAction = new TicketAction();
-                revertAction.setAction("STATUS_CHANGED");
-                revertAction.setBy(username);
-                revertAction.setTimestamp(timestamp);
-                revertAction.setFrom(currentStatus);
-                revertAction.setTo(previousStatus);
-
-                t.addHistory(revertAction);
-                t.setStatus(previousStatus);
-
-                if ("CLOSED".equals(currentStatus) && !"CLOSED".equals(previousStatus)) {
-                    t.setSolvedAt("");
-                }
-
+            if (reverted) {
                 updateMilestoneStatus(db, ticketId);
             }
         }
@@ -78,23 +60,59 @@ public final class UndoChangeStatusTicketCommand implements ICommand {
         return result;
     }
 
+    /**
+     Puts the ticket back in the status it had before its last status change.
+     return true if the ticket had a status change to revert
+     */
+    private boolean revertStatus(final Ticket t, final String username,
+                                 final String timestamp) {
+        List<TicketAction> history = t.getHistory();
+        TicketAction lastStatusChange = null;
+
+        for (int i = history.size() - 1; i >= 0; i--) {
+            if ("STATUS_CHANGED".equals(history.get(i).getAction())) {
+                lastStatusChange = history.get(i);
+                break;
+            }
+        }
+
+        if (lastStatusChange == null) {
+            return false;
+        }
+        String previousStatus = lastStatusChange.getFrom();
+        String currentStatus = t.getStatus();
+
+        TicketAction revertAction = new TicketAction();
+        revertAction.setAction("STATUS_CHANGED");
+        revertAction.setBy(username);
+        revertAction.setTimestamp(timestamp);
+        revertAction.setFrom(currentStatus);
+        revertAction.setTo(previousStatus);
+
+        t.addHistory(revertAction);
+        t.setStatus(previousStatus);
+
+        if ("CLOSED".equals(currentStatus) && !"CLOSED".equals(previousStatus)) {
+            t.setSolvedAt("");
+        }
+        return true;
+    }
+
     private void updateMilestoneStatus(final Database db, final int ticketId) {
-        for (Milestone m : db.getMilestones()) {
-            if (m.getTickets().contains(ticketId)) {
-                boolean allClosed = true;
-                for (Integer tId : m.getTickets()) {
-                    Ticket t = db.getTicket(tId);
-                    if (t == null || !"CLOSED".equals(t.getStatus())) {
-                        allClosed = false;
-                        break;
-                    }
-                }
-                if (allClosed) {
-                    m.setStatus("COMPLETED");
-                } else {
-                    m.setStatus("ACTIVE");
-                }
+        Milestone m = db.getMilestoneForTicket(ticketId);
+        if (m == null) {
+            return;
+        }
+        Lock milestoneLock = db.milestoneLock(m);
+        milestoneLock.lock();
+        try {
+            if (m.areAllTicketsClosed()) {
+                m.setStatus("COMPLETED");
+            } else {
+                m.setStatus("ACTIVE");
             }
+        } finally {
+            milestoneLock.unlock();
         }
     }
 }
@@ -6,11 +6,12 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Ticket;
+import cod.model.TicketView;
 import cod.model.User;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public final class ViewAssignedTicketsCommand implements ICommand {
     private static final int PRIORITY_LOW = 0;
@@ -19,15 +20,14 @@ public final class ViewAssignedTicketsCommand implements ICommand {
     private static final int PRIORITY_CRITICAL = 3;
 
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ViewAssignedTicketsCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -46,9 +46,7 @@ public final class ViewAssignedTicketsCommand implements ICommand {
         result.put("timestamp", timestamp);
         ArrayNode arr = result.putArray("assignedTickets");
 
-        List<Ticket> assigned = db.getTickets().stream()
-                .filter(t -> username.equals(t.getAssignedTo()))
-                .collect(Collectors.toList());
+        List<Ticket> assigned = db.getTicketsAssignedTo(username);
 
         assigned.sort((t1, t2) -> {
             int p1 = getPriorityValue(t1.getBusinessPriority());
@@ -60,10 +58,7 @@ public final class ViewAssignedTicketsCommand implements ICommand {
         });
 
         for (Ticket t : assigned) {
-            ObjectNode ticketNode = mapper.valueToTree(t);
-            ticketNode.remove("assignedTo");
-            ticketNode.remove("solvedAt");
-            arr.add(ticketNode);
+            arr.addPOJO(TicketView.of(t, TicketView.Projection.ASSIGNED));
         }
 
         return result;
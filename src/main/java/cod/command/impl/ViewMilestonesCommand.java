@@ -6,6 +6,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Milestone;
 import cod.model.User;
 
@@ -15,15 +16,14 @@ import java.util.List;
 
 public final class ViewMilestonesCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ViewMilestonesCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -43,32 +43,25 @@ public final class ViewMilestonesCommand implements ICommand {
         ArrayNode milestonesArray = result.putArray("milestones");
 
         List<Milestone> visibleMilestones = new ArrayList<>();
+        String role = user.getRole();
 
-        for (Milestone m : db.getMilestones()) {
-            boolean show = false;
-            String role = user.getRole();
-
-            if ("MANAGER".equals(role)) {
-                if (m.getCreatedBy().equals(username)) {
-                    show = true;
-                }
-            } else if ("DEVELOPER".equals(role)) {
-                if (m.getAssignedDevs().contains(username)) {
-                    show = true;
-                }
-            }
-
-            if (show) {
-                m.calculateTimeFields(timestamp);
-                visibleMilestones.add(m);
-            }
+        if ("MANAGER".equals(role)) {
+            visibleMilestones.addAll(db.getMilestonesCreatedBy(username));
+        } else if ("DEVELOPER".equals(role)) {
+            visibleMilestones.addAll(db.getMilestonesForDeveloper(username));
         }
 
-        visibleMilestones.sort(Comparator.comparing(Milestone::getDueDate)
+        visibleMilestones.sort(Comparator.comparingInt(Milestone::getDueDay)
                 .thenComparing(Milestone::getName));
 
         for (Milestone m : visibleMilestones) {
-            milestonesArray.add(mapper.valueToTree(m));
+            ObjectNode milestoneNode = Serialization.toTree(Serialization.MILESTONE, m);
+            if (!timestamp.isEmpty()) {
+                long daysBeforeDue = m.daysBeforeDue(timestamp);
+                milestoneNode.put("daysUntilDue", Milestone.daysUntilDue(daysBeforeDue));
+                milestoneNode.put("overdueBy", Milestone.overdueBy(daysBeforeDue));
+            }
+            milestonesArray.add(milestoneNode);
         }
 
         return result;
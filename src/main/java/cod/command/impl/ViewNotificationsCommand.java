@@ -6,23 +6,20 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.User;
 import cod.utils.NotificationManager;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ViewNotificationsCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ViewNotificationsCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -33,16 +30,15 @@ public final class ViewNotificationsCommand implements ICommand {
 
         NotificationManager.checkDeadlines(db, timestamp);
         NotificationManager.checkUnblocking(db, timestamp);
+        NotificationManager.deliverPending(db);
 
         User user = db.getUser(username);
         ArrayNode notifsArray = result.putArray("notifications");
 
         if (user != null) {
-            List<String> userNotifs = new ArrayList<>(user.getNotifications());
-            for (String n : userNotifs) {
+            for (String n : user.takeNotifications()) {
                 notifsArray.add(n);
             }
-            user.clearNotifications();
         }
 
         return result;
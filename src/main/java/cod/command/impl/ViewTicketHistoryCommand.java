@@ -6,23 +6,22 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.ICommand;
 import cod.database.Database;
+import cod.io.Serialization;
 import cod.model.Ticket;
 import cod.model.TicketAction;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public final class ViewTicketHistoryCommand implements ICommand {
     private final JsonNode args;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = Serialization.mapper();
 
     public ViewTicketHistoryCommand(final JsonNode args) {
         this.args = args;
     }
 
     @Override
-    public ObjectNode execute() {
-        Database db = Database.getInstance();
+    public ObjectNode execute(final Database db) {
         ObjectNode result = mapper.createObjectNode();
         String username = args.has("username") ? args.get("username").asText() : "";
         String timestamp = args.has("timestamp") ? args.get("timestamp").asText() : "";
@@ -33,19 +32,7 @@ public final class ViewTicketHistoryCommand implements ICommand {
 
         ArrayNode historyArray = result.putArray("ticketHistory");
 
-        List<Ticket> relevantTickets = db.getTickets().stream()
-                .filter(t -> {
-                    if (username.equals(t.getAssignedTo())) {
-                        return true;
-                    }
-                    for (TicketAction action : t.getHistory()) {
-                        if (username.equals(action.getBy())) {
-                            return true;
-                        }
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
+        List<Ticket> relevantTickets = db.getTicketsTouchedBy(username);
 
         for (Ticket t : relevantTickets) {
             ObjectNode ticketNode = mapper.createObjectNode();
@@ -55,10 +42,11 @@ public final class ViewTicketHistoryCommand implements ICommand {
 
             ArrayNode actionsNode = ticketNode.putArray("actions");
             for (TicketAction action : t.getHistory()) {
-                actionsNode.add(mapper.valueToTree(action));
+                actionsNode.add(Serialization.toTree(Serialization.TICKET_ACTION, action));
             }
 
-            ticketNode.set("comments", mapper.valueToTree(t.getComments()));
+            ticketNode.set("comments",
+                    Serialization.toTree(Serialization.COMMENTS, t.getComments()));
             historyArray.add(ticketNode);
         }
 
@@ -2,61 +2,147 @@ package cod.database;
 
 import cod.model.Milestone;
 import cod.model.Ticket;
+import cod.model.TicketAction;
 import cod.model.User;
+import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 
-import java.time.LocalDate;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 /**
- Singleton Database class to store application data.
+ Stores the data of one workspace. Every input stream gets its own instance,
+ which is passed to the commands it runs, so independent streams can be
+ processed concurrently in the same JVM.
+
+ The instance is also safe to share between threads. Collections and indexes
+ are guarded by a StampedLock: lookups walk them under the read lock, and only
+ reads of a single field are done optimistically and validated afterwards.
+ The contents of a ticket are guarded by its stripe from ticketLock, so
+ commands changing different tickets run in parallel; the milestone stripes
+ do the same for milestone status. A thread holds at most one stripe of each
+ kind, and takes the ticket stripe before the milestone one.
  */
 public final class Database {
-    private static Database instance;
+    private static final int LOCK_STRIPES = 64;
+
+    private final StampedLock lock = new StampedLock();
+    private final LockStripes ticketLocks = new LockStripes(LOCK_STRIPES);
+    private final LockStripes milestoneLocks = new LockStripes(LOCK_STRIPES);
+    private final AtomicInteger ticketIdCounter = new AtomicInteger();
+    private final NotificationDispatcher notifications = new NotificationDispatcher();
     private List<User> users;
+    private Map<String, User> usersByName;
+    private Map<String, List<User>> usersByRole;
     private List<Ticket> tickets;
     private List<Milestone> milestones;
-    private boolean isTestingPhase;
-    private int ticketIdCounter;
-    private LocalDate testingPhaseStartDate;
+    private Map<Integer, Milestone> milestoneByTicket;
+    private Map<String, List<Milestone>> milestonesByDeveloper;
+    private Map<String, List<Milestone>> milestonesByCreator;
+    private volatile MilestoneGraph milestoneGraph;
+    private volatile DeadlineScheduler deadlineScheduler;
+    private TicketIndex ticketIndex;
+    private UserTicketIndex assigneeIndex;
+    private UserTicketIndex reporterIndex;
+    private UserTicketIndex actorIndex;
+    private BitSet assignedTicketIds;
+    private volatile TicketVersions versions;
+    private volatile boolean isTestingPhase;
+    private volatile int testingPhaseStartDay;
 
-    private Database() {
+    public Database() {
         reset();
     }
 
     /**
-     returns the singleton instance of the Database.
-     return the singleton instance
+     Resets the database to its initial state.
      */
-    public static synchronized Database getInstance() {
-        if (instance == null) {
-            instance = new Database();
+    public void reset() {
+        long stamp = lock.writeLock();
+        try {
+            resetLocked();
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        return instance;
     }
 
-    /**
-     Resets the database to its initial state.
-     */
-    public void reset() {
+    private void resetLocked() {
+        // queued events point at the users about to be dropped; deliver them first
+        notifications.flush();
         users = new ArrayList<>();
+        usersByName = new HashMap<>();
+        usersByRole = new HashMap<>();
         tickets = new ArrayList<>();
         milestones = new ArrayList<>();
+        milestoneByTicket = new HashMap<>();
+        milestonesByDeveloper = new HashMap<>();
+        milestonesByCreator = new HashMap<>();
+        milestoneGraph = new MilestoneGraph();
+        deadlineScheduler = new DeadlineScheduler(milestoneGraph);
+        ticketIndex = new TicketIndex();
+        assigneeIndex = new UserTicketIndex();
+        reporterIndex = new UserTicketIndex();
+        actorIndex = new UserTicketIndex();
+        assignedTicketIds = new BitSet();
+        versions = new TicketVersions(this);
         isTestingPhase = true;
-        ticketIdCounter = 0;
-        testingPhaseStartDate = null;
+        ticketIdCounter.set(0);
+        testingPhaseStartDay = DateUtils.NO_DATE;
     }
 
     /**
-     Sets the list of users.
+     Sets the list of users and rebuilds the username and role indexes.
      param users the list of users to set
      */
     public void setUsers(final List<User> users) {
-        this.users = users;
+        long stamp = lock.writeLock();
+        try {
+            setUsersLocked(users);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
+    private void setUsersLocked(final List<User> newUsers) {
+        Map<String, User> byName = new HashMap<>();
+        Map<String, List<User>> byRole = new HashMap<>();
+        for (User u : newUsers) {
+            byName.putIfAbsent(u.getUsername(), u);
+            byRole.computeIfAbsent(u.getRole(), r -> new ArrayList<>()).add(u);
+        }
+        users = newUsers;
+        usersByName = byName;
+        usersByRole = byRole;
+    }
+
+    /**
+     Gets the list of users, reading the field optimistically.
+     */
     public List<User> getUsers() {
-        return users;
+        long stamp = lock.tryOptimisticRead();
+        List<User> current = users;
+        if (lock.validate(stamp)) {
+            return current;
+        }
+        return read(() -> users);
     }
 
     /**
@@ -64,45 +150,346 @@ public final class Database {
      return the User object if found, otherwise null
      */
     public User getUser(final String username) {
-        return users.stream()
-                .filter(u -> u.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        return read(() -> usersByName.get(username));
+    }
+
+    /**
+     Retrieves the users having the given role, in the order they were loaded.
+     return an unmodifiable list, empty if no user has that role
+     */
+    public List<User> getUsersByRole(final String role) {
+        List<User> list = read(() -> usersByRole.get(role));
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(list);
     }
 
     /**
      Adds a ticket to the database and assigns it an ID.
+     IDs are handed out densely from ticketIdCounter, so a ticket's ID is also
+     its position in the backing list. The ID is taken under the write lock,
+     so concurrent writers can never append out of order.
      */
     public void addTicket(final Ticket ticket) {
-        ticket.setId(ticketIdCounter++);
+        long stamp = lock.writeLock();
+        try {
+            addTicketLocked(ticket);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void addTicketLocked(final Ticket ticket) {
+        ticket.setId(ticketIdCounter.getAndIncrement());
         tickets.add(ticket);
+        ticket.setDatabase(this);
+        ticketIndex.add(ticket);
+        reporterIndex.add(ticket.getReportedBy(), ticket.getId());
+        indexAssignee(ticket, null);
+        for (TicketAction action : ticket.getHistory()) {
+            actorIndex.add(action.getBy(), ticket.getId());
+        }
+
+        Milestone owner = milestoneByTicket.get(ticket.getId());
+        if (owner != null) {
+            updateTicketState(owner, ticket);
+        }
+        versions.touched(ticket.getId());
+    }
+
+    /**
+     Called by a stored ticket after its status, type or priority changed. Moves
+     it between index buckets and, when it was closed or reopened, keeps the
+     owning milestone's open/closed sets and the dependency graph in sync.
+     */
+    public void onTicketChanged(final Ticket ticket, final String previousStatus,
+                                final TicketType previousType,
+                                final String previousPriority) {
+        long stamp = lock.writeLock();
+        try {
+            ticketIndex.move(ticket, previousStatus, previousType, previousPriority);
+
+            boolean wasClosed = "CLOSED".equals(previousStatus);
+            boolean isClosed = "CLOSED".equals(ticket.getStatus());
+            if (wasClosed == isClosed) {
+                return;
+            }
+            Milestone owner = milestoneByTicket.get(ticket.getId());
+            if (owner != null) {
+                updateTicketState(owner, ticket);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     Called by a stored ticket after it was assigned to or released by a developer.
+     */
+    public void onTicketAssigneeChanged(final Ticket ticket, final String previousAssignee) {
+        long stamp = lock.writeLock();
+        try {
+            indexAssignee(ticket, previousAssignee);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void indexAssignee(final Ticket ticket, final String previousAssignee) {
+        assigneeIndex.remove(previousAssignee, ticket.getId());
+        assigneeIndex.add(ticket.getAssignedTo(), ticket.getId());
+        String assignee = ticket.getAssignedTo();
+        assignedTicketIds.set(ticket.getId(), assignee != null && !assignee.isEmpty());
     }
 
+    /**
+     Called by a stored ticket after an action was appended to its history.
+     */
+    public void onTicketHistoryAdded(final Ticket ticket, final TicketAction action) {
+        long stamp = lock.writeLock();
+        try {
+            actorIndex.add(action.getBy(), ticket.getId());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     Called by a stored ticket after any of its fields changed.
+     */
+    public void onTicketTouched(final Ticket ticket) {
+        versions.touched(ticket.getId());
+    }
+
+    /**
+     Pins the current version of the tickets for reading. The version does not
+     change afterwards, so it can be read without locks while writers go on.
+     Every ticket is copied whole under its lock; the version is an exact cut
+     of the database when no command changes it meanwhile, which is how App
+     and the server run reports.
+     */
+    public ReadVersion pinVersion() {
+        return versions.pin();
+    }
+
+    /**
+     Builds a read version over the given ticket copies, with copies of the
+     status and assignee indexes taken under the read lock.
+     */
+    ReadVersion newVersion(final long number, final Ticket[] ticketCopies) {
+        return read(() -> new ReadVersion(number, ticketCopies, ticketIndex.idsByStatus(),
+                assigneeIndex.copy(), (BitSet) assignedTicketIds.clone()));
+    }
+
+    /**
+     Called by a stored ticket after its reporter changed.
+     */
+    public void onTicketReporterChanged(final Ticket ticket, final String previousReporter) {
+        long stamp = lock.writeLock();
+        try {
+            reporterIndex.remove(previousReporter, ticket.getId());
+            reporterIndex.add(ticket.getReportedBy(), ticket.getId());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void updateTicketState(final Milestone owner, final Ticket ticket) {
+        boolean hadOpen = owner.hasOpenTickets();
+        owner.setTicketClosed(ticket.getId(), "CLOSED".equals(ticket.getStatus()));
+        if (hadOpen != owner.hasOpenTickets()) {
+            milestoneGraph.openTicketsChanged(owner);
+            deadlineScheduler.invalidate();
+        }
+    }
+
+    /**
+     Gets a copy of the list of tickets, in id order.
+     */
     public List<Ticket> getTickets() {
-        return tickets;
+        return read(() -> new ArrayList<>(tickets));
+    }
+
+    /**
+     Retrieves the tickets matching the given status, type and business priority,
+     in id order, touching only the matching index buckets.
+     param status the status to match, or null for any
+     param type the ticket type name to match, or null for any
+     param priority the business priority to match, or null for any
+     */
+    public List<Ticket> findTickets(final String status, final String type,
+                                    final String priority) {
+        return read(() -> ticketsOf(ticketIndex.find(status, type, priority)));
+    }
+
+    /**
+     Retrieves the tickets currently assigned to the given developer, in id order.
+     */
+    public List<Ticket> getTicketsAssignedTo(final String username) {
+        return read(() -> ticketsOf(assigneeIndex.ids(username)));
+    }
+
+    /**
+     Retrieves the tickets reported by the given user, in id order.
+     */
+    public List<Ticket> getTicketsReportedBy(final String username) {
+        return read(() -> ticketsOf(reporterIndex.ids(username)));
     }
 
     /**
-     Retrieves a ticket by its ID.
+     Retrieves the tickets the user is assigned to or has performed an action on,
+     in id order, without looking at other users' history.
+     */
+    public List<Ticket> getTicketsTouchedBy(final String username) {
+        return read(() -> {
+            BitSet ids = actorIndex.ids(username);
+            ids.or(assigneeIndex.ids(username));
+            return ticketsOf(ids);
+        });
+    }
+
+    /**
+     Retrieves every ticket that currently has an assignee, in id order.
+     */
+    public List<Ticket> getAssignedTickets() {
+        return read(() -> ticketsOf(assignedTicketIds));
+    }
+
+    private List<Ticket> ticketsOf(final BitSet ids) {
+        List<Ticket> result = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            result.add(tickets.get(id));
+        }
+        return result;
+    }
+
+    /**
+     Retrieves a ticket by its ID in constant time, using the ID as list index.
      param id the ID of the ticket
      return the Ticket object if found, otherwise null
      */
     public Ticket getTicket(final int id) {
-        return tickets.stream()
-                .filter(t -> t.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return read(() -> ticketAt(id));
+    }
+
+    private Ticket ticketAt(final int id) {
+        if (id < 0 || id >= tickets.size()) {
+            return null;
+        }
+        return tickets.get(id);
+    }
+
+    /**
+     Gets the lock guarding the contents of the ticket with the given ID.
+     Commands hold it while they check and change the ticket.
+     */
+    public Lock ticketLock(final int ticketId) {
+        return ticketLocks.forKey(ticketId);
     }
 
     /**
-     Adds a milestone to the database.
+     Gets the lock guarding the status of the given milestone.
+     */
+    public Lock milestoneLock(final Milestone m) {
+        return milestoneLocks.forKey(m.getName() == null ? 0 : m.getName().hashCode());
+    }
+
+    /**
+     Adds a milestone to the database and records it as the owner of its tickets.
      */
     public void addMilestone(final Milestone m) {
+        long stamp = lock.writeLock();
+        try {
+            addMilestoneLocked(m);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     Adds a milestone only if none of its tickets belongs to a milestone yet.
+     The check and the insertion are atomic, so concurrent creations can never
+     claim the same ticket twice.
+     return true if the milestone was added
+     */
+    public boolean tryAddMilestone(final Milestone m) {
+        long stamp = lock.writeLock();
+        try {
+            for (Integer tId : m.getTickets()) {
+                if (milestoneByTicket.containsKey(tId)) {
+                    return false;
+                }
+            }
+            addMilestoneLocked(m);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void addMilestoneLocked(final Milestone m) {
         milestones.add(m);
+        m.setDatabase(this);
+        for (Integer tId : m.getTickets()) {
+            milestoneByTicket.putIfAbsent(tId, m);
+            Ticket t = ticketAt(tId);
+            if (t != null) {
+                m.setTicketClosed(tId, "CLOSED".equals(t.getStatus()));
+            }
+        }
+        for (String dev : new LinkedHashSet<>(m.getAssignedDevs())) {
+            milestonesByDeveloper.computeIfAbsent(dev, d -> new ArrayList<>()).add(m);
+        }
+        milestonesByCreator.computeIfAbsent(m.getCreatedBy(), c -> new ArrayList<>()).add(m);
+        milestoneGraph.addMilestone(m);
+        deadlineScheduler.schedule(m);
+    }
+
+    /**
+     Retrieves the milestones the developer is assigned to, in creation order.
+     */
+    public List<Milestone> getMilestonesForDeveloper(final String username) {
+        return read(() -> new ArrayList<>(
+                milestonesByDeveloper.getOrDefault(username, Collections.emptyList())));
+    }
+
+    /**
+     Retrieves the milestones created by the given manager, in creation order.
+     */
+    public List<Milestone> getMilestonesCreatedBy(final String username) {
+        return read(() -> new ArrayList<>(
+                milestonesByCreator.getOrDefault(username, Collections.emptyList())));
+    }
+
+    /**
+     Retrieves the milestone containing the given ticket.
+     return the owning Milestone, or null if the ticket is not part of any milestone
+     */
+    public Milestone getMilestoneForTicket(final int ticketId) {
+        return read(() -> milestoneByTicket.get(ticketId));
     }
 
+    /**
+     Gets a copy of the list of milestones, in creation order.
+     */
     public List<Milestone> getMilestones() {
-        return milestones;
+        return read(() -> new ArrayList<>(milestones));
+    }
+
+    public MilestoneGraph getMilestoneGraph() {
+        return milestoneGraph;
+    }
+
+    public DeadlineScheduler getDeadlineScheduler() {
+        return deadlineScheduler;
+    }
+
+    /**
+     Gets the dispatcher delivering the notifications of the users.
+     */
+    public NotificationDispatcher getNotificationDispatcher() {
+        return notifications;
     }
 
     public boolean isTestingPhase() {
@@ -113,11 +500,97 @@ public final class Database {
         isTestingPhase = testingPhase;
     }
 
-    public LocalDate getTestingPhaseStartDate() {
-        return testingPhaseStartDate;
+    /**
+     Gets the epoch day the testing phase started, or NO_DATE before the first
+     ticket is reported.
+     */
+    public int getTestingPhaseStartDay() {
+        return testingPhaseStartDay;
+    }
+
+    public void setTestingPhaseStartDay(final int day) {
+        this.testingPhaseStartDay = day;
+    }
+
+    public int getTicketIdCounter() {
+        return ticketIdCounter.get();
+    }
+
+    /**
+     Runs a lookup under the read lock. The collections are plain ones that a
+     writer may be resizing, so they are never walked under an optimistic
+     stamp. Lookups must not take the lock themselves and must copy whatever
+     they return.
+     */
+    private <T> T read(final Supplier<T> lookup) {
+        long stamp = lock.readLock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     Writes the current contents to a binary snapshot file. The file is written
+     next to the target and renamed over it, so a crash never leaves a partial
+     snapshot behind.
+     */
+    public void saveSnapshot(final File file) throws IOException {
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeSnapshot(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     Replaces the current contents with the ones of a snapshot file and rebuilds
+     every index. If the file cannot be read the database is left unchanged.
+     */
+    public void loadSnapshot(final File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            readSnapshot(in);
+        }
+    }
+
+    /**
+     Writes the snapshot of the current contents to a stream, for callers that
+     embed it in their own files. It must run while no command changes the
+     database, since the contents of tickets are not covered by its locks.
+     Pending notifications are delivered first, so they are part of it.
+     */
+    public void writeSnapshot(final DataOutputStream out) throws IOException {
+        notifications.flush();
+        DatabaseSnapshot.write(this, out);
     }
 
-    public void setTestingPhaseStartDate(final LocalDate date) {
-        this.testingPhaseStartDate = date;
+    /**
+     Reads a snapshot written by writeSnapshot and replaces the current contents
+     with it. If the snapshot cannot be read the database is left unchanged.
+     */
+    public void readSnapshot(final DataInputStream in) throws IOException {
+        DatabaseSnapshot snapshot = DatabaseSnapshot.read(in);
+
+        long stamp = lock.writeLock();
+        try {
+            resetLocked();
+            setUsersLocked(snapshot.getUsers());
+            for (Ticket t : snapshot.getTickets()) {
+                addTicketLocked(t);
+            }
+            ticketIdCounter.set(snapshot.getTicketIdCounter());
+            for (Milestone m : snapshot.getMilestones()) {
+                addMilestoneLocked(m);
+            }
+            isTestingPhase = snapshot.isTestingPhase();
+            testingPhaseStartDay = snapshot.getTestingPhaseStartDay();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 }
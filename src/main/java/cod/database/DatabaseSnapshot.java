@@ -0,0 +1,435 @@
+package cod.database;
+
+import cod.model.Bug;
+import cod.model.Comment;
+import cod.model.Developer;
+import cod.model.FeatureRequest;
+import cod.model.Manager;
+import cod.model.Milestone;
+import cod.model.Reporter;
+import cod.model.Ticket;
+import cod.model.TicketAction;
+import cod.model.User;
+import cod.model.enums.Seniority;
+import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Compact binary form of the database contents: users, tickets with their
+ comments and history, milestones, the testing phase and the id counter.
+ Only the primary data is stored; every index is rebuilt on load by adding
+ the entities back through the database, as commands do.
+
+ Layout: magic, format version, then each section as a count followed by its
+ records. Strings and lists are length-prefixed, -1 standing for null.
+ */
+final class DatabaseSnapshot {
+    private static final int MAGIC = 0x544B4442;
+    private static final int VERSION = 1;
+
+    private static final int KIND_REPORTER = 0;
+    private static final int KIND_DEVELOPER = 1;
+    private static final int KIND_MANAGER = 2;
+
+    private static final int KIND_TICKET = 0;
+    private static final int KIND_BUG = 1;
+    private static final int KIND_FEATURE_REQUEST = 2;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Ticket> tickets = new ArrayList<>();
+    private final List<Milestone> milestones = new ArrayList<>();
+    private boolean testingPhase;
+    private int testingPhaseStartDay = DateUtils.NO_DATE;
+    private int ticketIdCounter;
+
+    private DatabaseSnapshot() {
+    }
+
+    List<User> getUsers() {
+        return users;
+    }
+
+    List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    List<Milestone> getMilestones() {
+        return milestones;
+    }
+
+    boolean isTestingPhase() {
+        return testingPhase;
+    }
+
+    int getTestingPhaseStartDay() {
+        return testingPhaseStartDay;
+    }
+
+    int getTicketIdCounter() {
+        return ticketIdCounter;
+    }
+
+    /**
+     Writes the contents of the database.
+     */
+    static void write(final Database db, final DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        out.writeInt(db.getUsers().size());
+        for (User u : db.getUsers()) {
+            writeUser(out, u);
+        }
+        out.writeInt(db.getTickets().size());
+        for (Ticket t : db.getTickets()) {
+            writeTicket(out, t);
+        }
+        out.writeInt(db.getMilestones().size());
+        for (Milestone m : db.getMilestones()) {
+            writeMilestone(out, m);
+        }
+
+        out.writeBoolean(db.isTestingPhase());
+        int start = db.getTestingPhaseStartDay();
+        out.writeBoolean(start != DateUtils.NO_DATE);
+        if (start != DateUtils.NO_DATE) {
+            out.writeLong(start);
+        }
+        out.writeInt(db.getTicketIdCounter());
+    }
+
+    /**
+     Reads a snapshot written by write. Nothing is applied to a database here,
+     so a truncated or foreign file leaves the current state untouched.
+     */
+    static DatabaseSnapshot read(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a database snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+
+        DatabaseSnapshot snapshot = new DatabaseSnapshot();
+        int userCount = in.readInt();
+        for (int i = 0; i < userCount; i++) {
+            snapshot.users.add(readUser(in));
+        }
+        int ticketCount = in.readInt();
+        for (int i = 0; i < ticketCount; i++) {
+            Ticket t = readTicket(in);
+            if (t.getId() != i) {
+                throw new IOException("corrupt snapshot: ticket " + t.getId()
+                        + " stored at position " + i);
+            }
+            snapshot.tickets.add(t);
+        }
+        int milestoneCount = in.readInt();
+        for (int i = 0; i < milestoneCount; i++) {
+            snapshot.milestones.add(readMilestone(in));
+        }
+
+        snapshot.testingPhase = in.readBoolean();
+        if (in.readBoolean()) {
+            snapshot.testingPhaseStartDay = (int) in.readLong();
+        }
+        snapshot.ticketIdCounter = in.readInt();
+        return snapshot;
+    }
+
+    private static void writeUser(final DataOutputStream out, final User u) throws IOException {
+        if (u instanceof Developer) {
+            Developer d = (Developer) u;
+            out.writeByte(KIND_DEVELOPER);
+            writeCommonUser(out, u);
+            writeString(out, d.getHireDate());
+            writeString(out, d.getExpertiseArea());
+            writeString(out, d.getSeniority() == null ? null : d.getSeniority().name());
+            out.writeDouble(d.getPerformanceScore());
+        } else if (u instanceof Manager) {
+            Manager m = (Manager) u;
+            out.writeByte(KIND_MANAGER);
+            writeCommonUser(out, u);
+            writeString(out, m.getHireDate());
+            writeStrings(out, m.getSubordinates());
+        } else {
+            out.writeByte(KIND_REPORTER);
+            writeCommonUser(out, u);
+        }
+    }
+
+    private static void writeCommonUser(final DataOutputStream out, final User u)
+            throws IOException {
+        writeString(out, u.getUsername());
+        writeString(out, u.getEmail());
+        writeString(out, u.getRole());
+        writeStrings(out, u.getNotifications());
+    }
+
+    private static User readUser(final DataInputStream in) throws IOException {
+        int kind = in.readByte();
+        User u;
+        switch (kind) {
+            case KIND_DEVELOPER:
+                u = new Developer();
+                break;
+            case KIND_MANAGER:
+                u = new Manager();
+                break;
+            case KIND_REPORTER:
+                u = new Reporter();
+                break;
+            default:
+                throw new IOException("corrupt snapshot: unknown user kind " + kind);
+        }
+        u.setUsername(readString(in));
+        u.setEmail(readString(in));
+        u.setRole(readString(in));
+        u.setNotifications(readStrings(in));
+
+        if (u instanceof Developer) {
+            Developer d = (Developer) u;
+            d.setHireDate(readString(in));
+            d.setExpertiseArea(readString(in));
+            String seniority = readString(in);
+            d.setSeniority(seniority == null ? null : Seniority.valueOf(seniority));
+            d.setPerformanceScore(in.readDouble());
+        } else if (u instanceof Manager) {
+            Manager m = (Manager) u;
+            m.setHireDate(readString(in));
+            m.setSubordinates(readStrings(in));
+        }
+        return u;
+    }
+
+    private static void writeTicket(final DataOutputStream out, final Ticket t)
+            throws IOException {
+        if (t instanceof Bug) {
+            out.writeByte(KIND_BUG);
+        } else if (t instanceof FeatureRequest) {
+            out.writeByte(KIND_FEATURE_REQUEST);
+        } else {
+            out.writeByte(KIND_TICKET);
+        }
+        out.writeInt(t.getId());
+        writeString(out, t.getType() == null ? null : t.getType().name());
+        writeString(out, t.getTitle());
+        writeString(out, t.getInitialBusinessPriority());
+        writeString(out, t.getBusinessPriority());
+        writeString(out, t.getStatus());
+        writeString(out, t.getExpertiseArea());
+        writeString(out, t.getDescription());
+        writeString(out, t.getReportedBy());
+        writeString(out, t.getAssignedTo());
+        writeString(out, t.getAssignedAt());
+        writeString(out, t.getSolvedAt());
+        writeString(out, t.getCreatedAt());
+
+        writeString(out, t.getSeverity());
+        writeString(out, t.getExpectedBehavior());
+        writeString(out, t.getActualBehavior());
+        writeString(out, t.getFrequency());
+        writeString(out, t.getEnvironment());
+        writeInteger(out, t.getErrorCode());
+        writeString(out, t.getBusinessValue());
+        writeString(out, t.getCustomerDemand());
+        writeString(out, t.getUiElementId());
+        writeInteger(out, t.getUsabilityScore());
+        writeString(out, t.getSuggestedFix());
+
+        List<Comment> comments = t.getComments();
+        out.writeInt(comments == null ? -1 : comments.size());
+        if (comments != null) {
+            for (Comment c : comments) {
+                writeString(out, c.getAuthor());
+                writeString(out, c.getContent());
+                writeString(out, c.getCreatedAt());
+            }
+        }
+
+        out.writeInt(t.getHistory().size());
+        for (TicketAction a : t.getHistory()) {
+            writeString(out, a.getMilestone());
+            writeString(out, a.getFrom());
+            writeString(out, a.getTo());
+            writeString(out, a.getBy());
+            writeString(out, a.getTimestamp());
+            writeString(out, a.getAction());
+        }
+    }
+
+    private static Ticket readTicket(final DataInputStream in) throws IOException {
+        int kind = in.readByte();
+        Ticket t;
+        switch (kind) {
+            case KIND_BUG:
+                t = new Bug();
+                break;
+            case KIND_FEATURE_REQUEST:
+                t = new FeatureRequest();
+                break;
+            case KIND_TICKET:
+                t = new Ticket();
+                break;
+            default:
+                throw new IOException("corrupt snapshot: unknown ticket kind " + kind);
+        }
+        t.setId(in.readInt());
+        String type = readString(in);
+        t.setType(type == null ? null : TicketType.valueOf(type));
+        t.setTitle(readString(in));
+        t.resetInitialPriority(readString(in));
+        t.setComputedPriority(readString(in));
+        t.setStatus(readString(in));
+        t.setExpertiseArea(readString(in));
+        t.setDescription(readString(in));
+        t.setReportedBy(readString(in));
+        t.setAssignedTo(readString(in));
+        t.setAssignedAt(readString(in));
+        t.setSolvedAt(readString(in));
+        t.setCreatedAt(readString(in));
+
+        t.setSeverity(readString(in));
+        t.setExpectedBehavior(readString(in));
+        t.setActualBehavior(readString(in));
+        t.setFrequency(readString(in));
+        t.setEnvironment(readString(in));
+        t.setErrorCode(readInteger(in));
+        t.setBusinessValue(readString(in));
+        t.setCustomerDemand(readString(in));
+        t.setUiElementId(readString(in));
+        t.setUsabilityScore(readInteger(in));
+        t.setSuggestedFix(readString(in));
+
+        int commentCount = in.readInt();
+        if (commentCount < 0) {
+            t.setComments(null);
+        } else {
+            List<Comment> comments = new ArrayList<>(commentCount);
+            for (int i = 0; i < commentCount; i++) {
+                comments.add(new Comment(readString(in), readString(in), readString(in)));
+            }
+            t.setComments(comments);
+        }
+
+        int actionCount = in.readInt();
+        for (int i = 0; i < actionCount; i++) {
+            TicketAction a = new TicketAction();
+            a.setMilestone(readString(in));
+            a.setFrom(readString(in));
+            a.setTo(readString(in));
+            a.setBy(readString(in));
+            a.setTimestamp(readString(in));
+            a.setAction(readString(in));
+            t.addHistory(a);
+        }
+        return t;
+    }
+
+    private static void writeMilestone(final DataOutputStream out, final Milestone m)
+            throws IOException {
+        writeString(out, m.getName());
+        writeStrings(out, m.getBlockingFor());
+        writeString(out, m.getDueDate());
+        writeString(out, m.getCreatedAt());
+        out.writeInt(m.getTickets().size());
+        for (Integer id : m.getTickets()) {
+            out.writeInt(id);
+        }
+        writeStrings(out, m.getAssignedDevs());
+        writeString(out, m.getCreatedBy());
+        writeString(out, m.getStatus());
+        out.writeInt(m.getDaysUntilDue());
+        out.writeInt(m.getOverdueBy());
+        out.writeBoolean(m.isNotifiedDueTomorrow());
+        out.writeBoolean(m.isUnblockedNotified());
+    }
+
+    private static Milestone readMilestone(final DataInputStream in) throws IOException {
+        Milestone m = new Milestone();
+        m.setName(readString(in));
+        m.setBlockingFor(readStrings(in));
+        m.setDueDate(readString(in));
+        m.setCreatedAt(readString(in));
+        int ticketCount = in.readInt();
+        List<Integer> ids = new ArrayList<>(ticketCount);
+        for (int i = 0; i < ticketCount; i++) {
+            ids.add(in.readInt());
+        }
+        m.setTickets(ids);
+        m.setAssignedDevs(readStrings(in));
+        m.setCreatedBy(readString(in));
+        m.setStatus(readString(in));
+        int daysUntilDue = in.readInt();
+        int overdueBy = in.readInt();
+        m.restoreTimeFields(daysUntilDue, overdueBy);
+        m.setNotifiedDueTomorrow(in.readBoolean());
+        m.setUnblockedNotified(in.readBoolean());
+        return m;
+    }
+
+    private static void writeString(final DataOutputStream out, final String s)
+            throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(final DataOutputStream out, final List<String> list)
+            throws IOException {
+        if (list == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(list.size());
+        for (String s : list) {
+            writeString(out, s);
+        }
+    }
+
+    private static List<String> readStrings(final DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString(in));
+        }
+        return list;
+    }
+
+    private static void writeInteger(final DataOutputStream out, final Integer value)
+            throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+}
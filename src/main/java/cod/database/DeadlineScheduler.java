@@ -0,0 +1,92 @@
+package cod.database;
+
+import cod.model.Milestone;
+import cod.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ Schedules the "due tomorrow" reminders of milestones by epoch day.
+ A reminder fires when the logical clock is exactly one day before the due
+ date, so every check only looks at the reminders of the current day; when
+ the clock did not move and nothing relevant changed, a check is free.
+ Reminders of the days the clock has passed, skipped ones included, can never
+ fire any more and are dropped as it advances.
+ Methods are synchronized, so concurrent checks never hand out a reminder twice.
+ */
+public final class DeadlineScheduler {
+    private final MilestoneGraph graph;
+    private final NavigableMap<Long, TreeMap<Integer, Milestone>> remindersByDay =
+            new TreeMap<>();
+    private int nextIndex = 0;
+    private long lastCheckedDay = Long.MIN_VALUE;
+    private boolean dirty = true;
+
+    public DeadlineScheduler(final MilestoneGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     Schedules the reminder of a newly created milestone; one without a due
+     date gets none.
+     */
+    public synchronized void schedule(final Milestone m) {
+        if (m.getDueDay() == DateUtils.NO_DATE) {
+            return;
+        }
+        long reminderDay = m.getDueDay() - 1L;
+        remindersByDay.computeIfAbsent(reminderDay, d -> new TreeMap<>())
+                .put(nextIndex++, m);
+        dirty = true;
+    }
+
+    /**
+     Signals that the blocking state of some milestone may have changed, so a
+     reminder held back on the current day must be looked at again.
+     */
+    public synchronized void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     Advances the clock and returns, in creation order, the milestones whose
+     reminder is due on the given day and that are not blocked. The returned
+     milestones are removed from the schedule, and so is every reminder of an
+     earlier day.
+     */
+    public synchronized List<Milestone> takeDue(final long epochDay) {
+        if (epochDay == lastCheckedDay && !dirty) {
+            return Collections.emptyList();
+        }
+        lastCheckedDay = epochDay;
+        dirty = false;
+        // reminders held back while blocked, or of days nobody checked
+        remindersByDay.headMap(epochDay).clear();
+
+        TreeMap<Integer, Milestone> reminders = remindersByDay.get(epochDay);
+        if (reminders == null) {
+            return Collections.emptyList();
+        }
+
+        List<Milestone> due = new ArrayList<>();
+        Iterator<Milestone> it = reminders.values().iterator();
+        while (it.hasNext()) {
+            Milestone m = it.next();
+            if (m.isNotifiedDueTomorrow()) {
+                it.remove();
+            } else if (!graph.isBlocked(m)) {
+                it.remove();
+                due.add(m);
+            }
+        }
+        if (reminders.isEmpty()) {
+            remindersByDay.remove(epochDay);
+        }
+        return due;
+    }
+}
@@ -0,0 +1,36 @@
+package cod.database;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Fixed set of locks shared by many keys. Each key always maps to the same lock,
+ and two keys only contend when they fall on the same stripe, so work on
+ different tickets or milestones rarely waits for each other.
+ */
+public final class LockStripes {
+    private static final int SPREAD = 0x9E3779B9;
+    private static final int HALF_WORD = 16;
+
+    private final ReentrantLock[] locks;
+
+    /**
+     Creates the stripes.
+     param stripes the number of locks, rounded up to a power of two
+     */
+    public LockStripes(final int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     Gets the lock guarding the given key.
+     */
+    public Lock forKey(final int key) {
+        int h = key * SPREAD;
+        return locks[(h ^ (h >>> HALF_WORD)) & (locks.length - 1)];
+    }
+}
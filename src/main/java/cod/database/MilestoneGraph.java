@@ -0,0 +1,122 @@
+package cod.database;
+
+import cod.model.Milestone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ Dependency graph between milestones, kept up to date incrementally.
+ Every milestone knows how many of its blockers still have open tickets, so
+ blocking checks never rescan tickets. All methods are synchronized, so the
+ graph can be updated by the database while commands query it.
+ */
+public final class MilestoneGraph {
+
+    private static final class Node {
+        private final Milestone milestone;
+        private final int index;
+        private int blockers;
+        private int activeBlockers;
+
+        Node(final Milestone milestone, final int index) {
+            this.milestone = milestone;
+            this.index = index;
+        }
+    }
+
+    private final Map<Milestone, Node> nodes = new HashMap<>();
+    private final Map<String, List<Node>> nodesByName = new HashMap<>();
+    private final Map<String, List<Node>> blockersByName = new HashMap<>();
+    private final TreeMap<Integer, Milestone> pendingUnblocked = new TreeMap<>();
+
+    /**
+     Adds a milestone to the graph, linking it to the milestones it blocks and
+     to the milestones already declared as blocking it.
+     */
+    public synchronized void addMilestone(final Milestone m) {
+        Node node = new Node(m, nodes.size());
+        nodes.put(m, node);
+        nodesByName.computeIfAbsent(m.getName(), k -> new ArrayList<>()).add(node);
+
+        for (Node blocker : blockersByName.getOrDefault(m.getName(),
+                Collections.emptyList())) {
+            node.blockers++;
+            if (blocker.milestone.hasOpenTickets()) {
+                node.activeBlockers++;
+            }
+        }
+
+        for (String blockedName : m.getBlockingFor()) {
+            blockersByName.computeIfAbsent(blockedName, k -> new ArrayList<>()).add(node);
+            for (Node blocked : nodesByName.getOrDefault(blockedName,
+                    Collections.emptyList())) {
+                blocked.blockers++;
+                if (m.hasOpenTickets()) {
+                    blocked.activeBlockers++;
+                }
+                refreshPending(blocked);
+            }
+        }
+
+        refreshPending(node);
+    }
+
+    /**
+     Records that the milestone went from having open tickets to having none,
+     or back. Callers only report the transitions, not every status change.
+     */
+    public synchronized void openTicketsChanged(final Milestone m) {
+        if (!nodes.containsKey(m)) {
+            return;
+        }
+        boolean isOpen = m.hasOpenTickets();
+
+        for (String blockedName : m.getBlockingFor()) {
+            for (Node blocked : nodesByName.getOrDefault(blockedName,
+                    Collections.emptyList())) {
+                blocked.activeBlockers += isOpen ? 1 : -1;
+                refreshPending(blocked);
+            }
+        }
+    }
+
+    /**
+     Checks if the milestone has a blocker with open tickets.
+     */
+    public synchronized boolean isBlocked(final Milestone m) {
+        Node node = nodes.get(m);
+        return node != null && node.activeBlockers > 0;
+    }
+
+    /**
+     Checks if any milestone declares the given one in its blockingFor list.
+     */
+    public synchronized boolean hasDependencies(final Milestone m) {
+        Node node = nodes.get(m);
+        return node != null && node.blockers > 0;
+    }
+
+    /**
+     Returns, in creation order, the milestones that have dependencies, are no
+     longer blocked and were not yet reported as unblocked, then forgets them.
+     */
+    public synchronized List<Milestone> takeUnblocked() {
+        List<Milestone> list = new ArrayList<>(pendingUnblocked.values());
+        pendingUnblocked.clear();
+        return list;
+    }
+
+    private void refreshPending(final Node node) {
+        if (node.blockers > 0 && node.activeBlockers == 0
+                && !node.milestone.isUnblockedNotified()) {
+            pendingUnblocked.put(node.index, node.milestone);
+        } else {
+            pendingUnblocked.remove(node.index);
+        }
+    }
+}
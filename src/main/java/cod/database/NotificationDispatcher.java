@@ -0,0 +1,96 @@
+package cod.database;
+
+import cod.model.User;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Delivers notifications in batches, off the path of the command raising them.
+ publish only queues the message with its recipients; a delivery drains the
+ queue, groups the messages by user and hands every user its messages with a
+ single call. With more than one processor a delivery is started on a virtual
+ thread as soon as something is queued; otherwise the queue is delivered once
+ it holds BATCH_SIZE events, or at the next flush.
+
+ Deliveries run one at a time and drain the queue in order, so every user gets
+ its messages in the order they were published. flush is the barrier readers
+ of notifications go through: once it returns, every message published before
+ it was called has been delivered.
+ */
+public final class NotificationDispatcher {
+    private static final boolean ASYNC = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     A message and the users it goes to.
+     */
+    private static final class Event {
+        private final List<User> recipients;
+        private final String message;
+
+        Event(final List<User> recipients, final String message) {
+            this.recipients = recipients;
+            this.message = message;
+        }
+    }
+
+    private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    /**
+     Queues a message for the given users. The list must not be changed
+     afterwards.
+     */
+    public void publish(final List<User> recipients, final String message) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+        pending.add(new Event(recipients, message));
+        if (ASYNC) {
+            if (scheduled.compareAndSet(false, true)) {
+                Thread.startVirtualThread(this::deliverScheduled);
+            }
+        } else if (queued.incrementAndGet() >= BATCH_SIZE) {
+            deliver();
+        }
+    }
+
+    /**
+     Delivers every message published so far before returning.
+     */
+    public void flush() {
+        deliver();
+    }
+
+    private void deliverScheduled() {
+        // cleared first: whatever is published from now on schedules a new delivery
+        scheduled.set(false);
+        deliver();
+    }
+
+    private void deliver() {
+        deliveryLock.lock();
+        try {
+            queued.set(0);
+            Map<User, List<String>> batch = new IdentityHashMap<>();
+            for (Event e = pending.poll(); e != null; e = pending.poll()) {
+                for (User u : e.recipients) {
+                    batch.computeIfAbsent(u, k -> new ArrayList<>()).add(e.message);
+                }
+            }
+            batch.forEach(User::addNotifications);
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package cod.database;
+
+import cod.model.Ticket;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ An immutable version of the tickets of a database, pinned for reading. The
+ tickets are detached copies, so a report can take as long as it needs over
+ them without holding any lock and without seeing later writes. Unchanged
+ tickets are shared between consecutive versions; a version that is no longer
+ referenced is simply reclaimed by the garbage collector.
+
+ The version also keeps copies of the status and assignee indexes, so its
+ lookups cost the matching tickets instead of a scan of all of them.
+ */
+public final class ReadVersion {
+    private final long number;
+    private final Ticket[] tickets;
+    private final Map<String, BitSet> idsByStatus;
+    private final UserTicketIndex assigneeIndex;
+    private final BitSet assignedIds;
+
+    ReadVersion(final long number, final Ticket[] tickets,
+                final Map<String, BitSet> idsByStatus, final UserTicketIndex assigneeIndex,
+                final BitSet assignedIds) {
+        this.number = number;
+        this.tickets = tickets;
+        this.idsByStatus = idsByStatus;
+        this.assigneeIndex = assigneeIndex;
+        this.assignedIds = assignedIds;
+    }
+
+    /**
+     Gets the version pinned before any ticket is stored.
+     */
+    static ReadVersion empty() {
+        return new ReadVersion(0, new Ticket[0], Collections.emptyMap(),
+                new UserTicketIndex(), new BitSet());
+    }
+
+    /**
+     Gets the number of the version; later versions have larger numbers.
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    Ticket[] ticketArray() {
+        return tickets;
+    }
+
+    /**
+     Gets every ticket of the version, in id order.
+     */
+    public List<Ticket> getTickets() {
+        return Collections.unmodifiableList(Arrays.asList(tickets));
+    }
+
+    /**
+     Retrieves a ticket of the version by its ID.
+     return the Ticket object if found, otherwise null
+     */
+    public Ticket getTicket(final int id) {
+        if (id < 0 || id >= tickets.length) {
+            return null;
+        }
+        return tickets[id];
+    }
+
+    /**
+     Retrieves the tickets having the given status, in id order.
+     */
+    public List<Ticket> findTickets(final String status) {
+        BitSet ids = idsByStatus.get(status);
+        return ids == null ? new ArrayList<>() : ticketsOf(ids);
+    }
+
+    /**
+     Retrieves the tickets assigned to the given developer, in id order.
+     */
+    public List<Ticket> getTicketsAssignedTo(final String username) {
+        return ticketsOf(assigneeIndex.ids(username));
+    }
+
+    /**
+     Retrieves every ticket that has an assignee, in id order.
+     */
+    public List<Ticket> getAssignedTickets() {
+        return ticketsOf(assignedIds);
+    }
+
+    /**
+     Resolves ids against the tickets of the version. The indexes are copied
+     after the tickets, so ids of tickets stored meanwhile are skipped.
+     */
+    private List<Ticket> ticketsOf(final BitSet ids) {
+        List<Ticket> result = new ArrayList<>(ids.cardinality());
+        for (int id = ids.nextSetBit(0); id >= 0 && id < tickets.length;
+                id = ids.nextSetBit(id + 1)) {
+            result.add(tickets[id]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package cod.database;
+
+import cod.model.Ticket;
+import cod.model.enums.Priority;
+import cod.model.enums.Status;
+import cod.model.enums.TicketType;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ Secondary index of ticket ids bucketed by status, type and business priority.
+ Ticket ids are dense, so every bucket is a bitset and a query is the union of
+ the buckets it selects, already in id order.
+ */
+public final class TicketIndex {
+    private static final Map<String, Integer> STATUS_SLOTS = slots(Status.values());
+    private static final Map<String, Integer> TYPE_SLOTS = slots(TicketType.values());
+    private static final Map<String, Integer> PRIORITY_SLOTS = slots(Priority.values());
+
+    private static final int STATUS_COUNT = Status.values().length + 1;
+    private static final int TYPE_COUNT = TicketType.values().length + 1;
+    private static final int PRIORITY_COUNT = Priority.values().length + 1;
+
+    private final BitSet[] buckets = new BitSet[STATUS_COUNT * TYPE_COUNT * PRIORITY_COUNT];
+
+    public TicketIndex() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new BitSet();
+        }
+    }
+
+    /**
+     Indexes a newly stored ticket under its current status, type and priority.
+     */
+    public void add(final Ticket t) {
+        buckets[bucket(t.getStatus(), t.getType(), t.getBusinessPriority())].set(t.getId());
+    }
+
+    /**
+     Moves a ticket from the bucket of its previous values to its current one.
+     */
+    public void move(final Ticket t, final String previousStatus,
+                     final TicketType previousType, final String previousPriority) {
+        int from = bucket(previousStatus, previousType, previousPriority);
+        int to = bucket(t.getStatus(), t.getType(), t.getBusinessPriority());
+        if (from != to) {
+            buckets[from].clear(t.getId());
+            buckets[to].set(t.getId());
+        }
+    }
+
+    /**
+     Returns the ids of the tickets matching all the given values. A null value
+     matches anything; a value that is not a known constant matches nothing.
+     */
+    public BitSet find(final String status, final String type, final String priority) {
+        BitSet result = new BitSet();
+        int[] statuses = querySlots(STATUS_SLOTS, STATUS_COUNT, status);
+        int[] types = querySlots(TYPE_SLOTS, TYPE_COUNT, type);
+        int[] priorities = querySlots(PRIORITY_SLOTS, PRIORITY_COUNT, priority);
+        for (int s : statuses) {
+            for (int ty : types) {
+                for (int p : priorities) {
+                    result.or(buckets[(s * TYPE_COUNT + ty) * PRIORITY_COUNT + p]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     Returns the ids of the tickets of every status, keyed by status name. The
+     bitsets are copies, so they can be kept after the index changes.
+     */
+    public Map<String, BitSet> idsByStatus() {
+        Map<String, BitSet> result = new HashMap<>();
+        for (Status s : Status.values()) {
+            result.put(s.name(), find(s.name(), null, null));
+        }
+        return result;
+    }
+
+    private int bucket(final String status, final TicketType type, final String priority) {
+        int s = slot(STATUS_SLOTS, STATUS_COUNT, status);
+        int ty = slot(TYPE_SLOTS, TYPE_COUNT, type == null ? null : type.name());
+        int p = slot(PRIORITY_SLOTS, PRIORITY_COUNT, priority);
+        return (s * TYPE_COUNT + ty) * PRIORITY_COUNT + p;
+    }
+
+    private static int slot(final Map<String, Integer> slots, final int count,
+                            final String value) {
+        Integer slot = value == null ? null : slots.get(value);
+        return slot == null ? count - 1 : slot;
+    }
+
+    private static int[] querySlots(final Map<String, Integer> slots, final int count,
+                                    final String value) {
+        if (value == null) {
+            int[] all = new int[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        Integer slot = slots.get(value);
+        return slot == null ? new int[0] : new int[] {slot};
+    }
+
+    private static Map<String, Integer> slots(final Enum<?>[] values) {
+        Map<String, Integer> map = new HashMap<>();
+        for (Enum<?> v : values) {
+            map.put(v.name(), v.ordinal());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,76 @@
+package cod.database;
+
+import cod.model.Ticket;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ Copy-on-write versions of the tickets of one database. Writers only flag the
+ tickets they change; pinning a version copies the flagged tickets, each under
+ its ticket lock, and reuses the copies of all the others. The indexes are
+ copied after the changed tickets were collected: a ticket is reindexed before
+ it is flagged, so every flagged change is already in the copied indexes.
+ */
+final class TicketVersions {
+    private final Database db;
+    private final Object dirtyLock = new Object();
+    private final Lock publishLock = new ReentrantLock();
+    private final BitSet dirty = new BitSet();
+    private volatile ReadVersion current = ReadVersion.empty();
+
+    TicketVersions(final Database db) {
+        this.db = db;
+    }
+
+    /**
+     Flags a ticket as changed since the last pinned version.
+     */
+    void touched(final int ticketId) {
+        synchronized (dirtyLock) {
+            dirty.set(ticketId);
+        }
+    }
+
+    /**
+     Gets a version holding every change flagged so far, publishing a new one if
+     tickets changed since the current one was pinned.
+     */
+    ReadVersion pin() {
+        publishLock.lock();
+        try {
+            BitSet changed;
+            synchronized (dirtyLock) {
+                if (dirty.isEmpty()) {
+                    return current;
+                }
+                changed = (BitSet) dirty.clone();
+                dirty.clear();
+            }
+
+            ReadVersion previous = current;
+            Ticket[] tickets = Arrays.copyOf(previous.ticketArray(),
+                    Math.max(changed.length(), previous.ticketArray().length));
+            for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                tickets[id] = copyOf(id);
+            }
+            current = db.newVersion(previous.getNumber() + 1, tickets);
+            return current;
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private Ticket copyOf(final int id) {
+        Ticket live = db.getTicket(id);
+        Lock ticketLock = db.ticketLock(id);
+        ticketLock.lock();
+        try {
+            return live.copy();
+        } finally {
+            ticketLock.unlock();
+        }
+    }
+}
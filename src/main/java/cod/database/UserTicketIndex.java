@@ -0,0 +1,56 @@
+package cod.database;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ Index from a username to the ids of the tickets related to that user
+ (assigned to, reported by, ...). Ids are kept in bitsets so per-user
+ listings come out in id order and cost only the user's own tickets.
+ */
+public final class UserTicketIndex {
+    private final Map<String, BitSet> idsByUser = new HashMap<>();
+
+    /**
+     Links the ticket to the user. Empty or null usernames are not indexed.
+     */
+    public void add(final String username, final int ticketId) {
+        if (username == null || username.isEmpty()) {
+            return;
+        }
+        idsByUser.computeIfAbsent(username, u -> new BitSet()).set(ticketId);
+    }
+
+    /**
+     Removes the link between the ticket and the user, if any.
+     */
+    public void remove(final String username, final int ticketId) {
+        if (username == null) {
+            return;
+        }
+        BitSet ids = idsByUser.get(username);
+        if (ids != null) {
+            ids.clear(ticketId);
+        }
+    }
+
+    /**
+     Returns a copy of the ids of the tickets linked to the user.
+     */
+    public BitSet ids(final String username) {
+        BitSet ids = idsByUser.get(username);
+        return ids == null ? new BitSet() : (BitSet) ids.clone();
+    }
+
+    /**
+     Returns a copy of the index that later changes to this one do not affect.
+     */
+    public UserTicketIndex copy() {
+        UserTicketIndex c = new UserTicketIndex();
+        for (Map.Entry<String, BitSet> e : idsByUser.entrySet()) {
+            c.idsByUser.put(e.getKey(), (BitSet) e.getValue().clone());
+        }
+        return c;
+    }
+}
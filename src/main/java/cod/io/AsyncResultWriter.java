@@ -0,0 +1,90 @@
+package cod.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ Serializes results on a thread of its own. write only hands the result over
+ through a bounded queue, blocking when the serializer is capacity results
+ behind, so results must not be changed once written.
+ */
+public final class AsyncResultWriter implements ResultSink {
+    private static final JsonNode END = MissingNode.getInstance();
+
+    private final ResultSink target;
+    private final BlockingQueue<JsonNode> queue;
+    private final Thread thread;
+    private volatile IOException failure;
+
+    /**
+     Starts the serializer thread.
+     param capacity the number of results that may wait for serialization
+     */
+    public AsyncResultWriter(final ResultSink target, final int capacity) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::drain, "result-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void drain() {
+        try {
+            for (JsonNode result = queue.take(); result != END; result = queue.take()) {
+                if (failure != null) {
+                    continue;
+                }
+                try {
+                    target.write(result);
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException e) {
+                    failure = new IOException(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("result writer interrupted");
+        }
+    }
+
+    /**
+     Queues a result for serialization. An error of the serializer is thrown by
+     the next write after it, or by close.
+     */
+    @Override
+    public void write(final JsonNode result) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            queue.put(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while queueing a result");
+        }
+    }
+
+    /**
+     Waits until every queued result is serialized, then closes the target.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+        } finally {
+            target.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
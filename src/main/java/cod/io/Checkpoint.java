@@ -0,0 +1,68 @@
+package cod.io;
+
+import cod.database.Database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ A database snapshot together with the journal segment started with it.
+ Recovery loads the snapshot and replays the journal only from that segment on.
+ */
+public final class Checkpoint {
+    private static final int MAGIC = 0x434B5054;
+    private static final int VERSION = 2;
+
+    /**
+     Private constructor to prevent instantiation of utility class.
+     */
+    private Checkpoint() {
+    }
+
+    /**
+     Writes a checkpoint of the database at the start of the given journal
+     segment. The file is replaced atomically, so the previous checkpoint stays
+     valid until the new one is complete.
+     */
+    public static void write(final File file, final Database db, final long journalSegment)
+            throws IOException {
+        Path target = file.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalSegment);
+            db.writeSnapshot(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     Loads a checkpoint into the database.
+     return the journal segment from which commands must be replayed
+     */
+    public static long read(final File file, final Database db) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported checkpoint version " + version);
+            }
+            long segment = in.readLong();
+            db.readSnapshot(in);
+            return segment;
+        }
+    }
+}
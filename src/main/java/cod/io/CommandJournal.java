@@ -0,0 +1,259 @@
+package cod.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ Append-only journal of the commands that changed the database. Every record
+ is the compact JSON of one command, framed by its length and a CRC32, so a
+ record torn by a crash is detected and dropped when the journal is opened.
+
+ Appends are buffered and made durable in groups: sync writes every pending
+ record and forces them to disk with a single fsync.
+
+ The journal is split into numbered segment files. A checkpoint starts a new
+ segment and refers to it, so recovery replays only the segments from that one
+ on, and the ones before it are deleted. Only the last segment is appended to,
+ so it is the only one checked for a torn record on open: opening and
+ recovering cost what was journaled since the last checkpoint, not the whole
+ history.
+ */
+public final class CommandJournal implements Closeable {
+    private static final int HEADER_BYTES = 8;
+    private static final int READ_BUFFER = 1 << 16;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final ObjectMapper mapper;
+    private final File dir;
+    private final int groupSize;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final DataOutputStream pendingOut = new DataOutputStream(pending);
+    private final CRC32 crc = new CRC32();
+    private int pendingRecords = 0;
+    private FileChannel channel;
+    private long segment;
+    private long durableSize;
+
+    /**
+     Opens the journal kept in the directory, or starts one, cutting off a torn
+     record at the end of its last segment.
+     param groupSize the number of pending records after which isGroupFull holds
+     */
+    public CommandJournal(final ObjectMapper mapper, final File dir, final int groupSize)
+            throws IOException {
+        this.mapper = mapper;
+        this.dir = dir;
+        this.groupSize = groupSize;
+        List<Long> segments = segments();
+        openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+    }
+
+    /**
+     Buffers a command. It is durable only after the next sync.
+     */
+    public void append(final JsonNode command) throws IOException {
+        byte[] payload = mapper.writeValueAsBytes(command);
+        crc.reset();
+        crc.update(payload);
+        pendingOut.writeInt(payload.length);
+        pendingOut.writeInt((int) crc.getValue());
+        pendingOut.write(payload);
+        pendingRecords++;
+    }
+
+    /**
+     Checks if there are appended records not yet synced.
+     */
+    public boolean hasPending() {
+        return pendingRecords > 0;
+    }
+
+    /**
+     Checks if enough records are pending to be worth an fsync.
+     */
+    public boolean isGroupFull() {
+        return pendingRecords >= groupSize;
+    }
+
+    /**
+     Writes all pending records and forces them to disk with one fsync.
+     */
+    public void sync() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        durableSize = channel.position();
+        pending.reset();
+        pendingRecords = 0;
+    }
+
+    /**
+     Gets the length of the durable part of the current segment, in bytes.
+     */
+    public long size() {
+        return durableSize;
+    }
+
+    /**
+     Syncs the current segment and starts the next one, empty.
+     return the number of the new segment, for a checkpoint to refer to
+     */
+    public long startSegment() throws IOException {
+        sync();
+        channel.close();
+        openSegment(segment + 1);
+        return segment;
+    }
+
+    /**
+     Deletes the segments before the given one, once a checkpoint covers them.
+     */
+    public void deleteSegmentsBefore(final long first) throws IOException {
+        for (long number : segments()) {
+            if (number < first) {
+                Files.deleteIfExists(segmentFile(number).toPath());
+            }
+        }
+    }
+
+    /**
+     Passes every durable command stored from the start of the given segment
+     on, in order. Every segment but the last was synced before the next one
+     was started, so one that is missing or does not read to its end means
+     commands were lost, and fails the replay.
+     */
+    public void replay(final long fromSegment, final Consumer<JsonNode> consumer)
+            throws IOException {
+        if (fromSegment > segment) {
+            throw new IOException("journal ends with segment " + segment
+                    + " but the checkpoint refers to segment " + fromSegment);
+        }
+        long expected = fromSegment;
+        for (long number : segments()) {
+            if (number < fromSegment) {
+                continue;
+            }
+            if (number != expected) {
+                throw new IOException("journal segment " + expected + " is missing");
+            }
+            expected++;
+            if (number == segment) {
+                try {
+                    scan(channel, consumer);
+                } finally {
+                    channel.position(durableSize);
+                }
+                continue;
+            }
+            try (FileChannel older = FileChannel.open(segmentFile(number).toPath(),
+                    StandardOpenOption.READ)) {
+                if (scan(older, consumer) != older.size()) {
+                    throw new IOException("corrupt journal segment " + segmentFile(number));
+                }
+            }
+        }
+    }
+
+    private void openSegment(final long number) throws IOException {
+        channel = FileChannel.open(segmentFile(number).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = number;
+        durableSize = scan(channel, null);
+        channel.truncate(durableSize);
+        channel.position(durableSize);
+    }
+
+    private File segmentFile(final long number) {
+        return new File(dir, "journal-" + number + ".log");
+    }
+
+    /**
+     Lists the numbers of the segments in the directory, in order.
+     */
+    private List<Long> segments() {
+        List<Long> numbers = new ArrayList<>();
+        String[] names = dir.list();
+        if (names != null) {
+            for (String name : names) {
+                Matcher m = SEGMENT_NAME.matcher(name);
+                if (m.matches()) {
+                    numbers.add(Long.parseLong(m.group(1)));
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     Reads the records of a segment until its end or the first invalid record,
+     returning the offset where valid records end. Moves the channel position;
+     callers put it back.
+     */
+    private long scan(final FileChannel file, final Consumer<JsonNode> consumer)
+            throws IOException {
+        long end = file.size();
+        long position = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(file.position(0)), READ_BUFFER));
+        try {
+            while (end - position >= HEADER_BYTES) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > end - position - HEADER_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (consumer != null) {
+                    consumer.accept(mapper.readTree(payload));
+                }
+                position += HEADER_BYTES + length;
+            }
+        } catch (EOFException e) {
+            // the file ended inside a record: it was torn, stop before it
+        }
+        return position;
+    }
+
+    /**
+     Closes the journal without syncing. Pending records are dropped: the
+     results of their commands were never released, so for the output those
+     commands never ran, and recovery must not replay them either.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,57 @@
+package cod.io;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ Reads the commands of an input file one at a time with Jackson's streaming
+ parser. Only the command currently being read is held in memory, so the
+ size of the file does not matter and the first command is available as
+ soon as it has been parsed.
+ */
+public final class CommandReader implements CommandSource {
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private boolean inArray = false;
+    private boolean finished = false;
+
+    public CommandReader(final ObjectMapper mapper, final File file) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createParser(file);
+    }
+
+    /**
+     Reads the next element of the top-level array.
+     return the element as a tree, or null when the array (or the input) is over
+     */
+    @Override
+    public JsonNode next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!inArray) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                finished = true;
+                return null;
+            }
+            inArray = true;
+        }
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.END_ARRAY) {
+            finished = true;
+            return null;
+        }
+        return mapper.readTree(parser);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        parser.close();
+    }
+}
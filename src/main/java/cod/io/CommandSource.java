@@ -0,0 +1,18 @@
+package cod.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ A stream of commands to execute, read one at a time.
+ */
+public interface CommandSource extends Closeable {
+
+    /**
+     Reads the next command.
+     return the command as a tree, or null when there are no more commands
+     */
+    JsonNode next() throws IOException;
+}
@@ -0,0 +1,98 @@
+package cod.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ Parses commands on a thread of its own, ahead of their execution. Parsed
+ commands wait in a bounded queue, so a fast parser never gets more than
+ capacity commands ahead and memory stays flat whatever the input size.
+ */
+public final class PrefetchingReader implements CommandSource {
+    private static final JsonNode END = MissingNode.getInstance();
+
+    private final CommandSource source;
+    private final BlockingQueue<JsonNode> queue;
+    private final Thread thread;
+    private volatile IOException failure;
+    private boolean finished = false;
+
+    /**
+     Starts reading the source in the background.
+     param capacity the number of parsed commands that may wait for execution
+     */
+    public PrefetchingReader(final CommandSource source, final int capacity) {
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::prefetch, "command-reader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void prefetch() {
+        try {
+            for (JsonNode command = source.next(); command != null; command = source.next()) {
+                queue.put(command);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        } catch (InterruptedException e) {
+            // closed before the input was over, nobody waits for the end marker
+            return;
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            // closed while the queue was full
+        }
+    }
+
+    /**
+     Takes the next parsed command, waiting for the parser if needed. An error
+     of the parser is thrown here, once the commands read before it are taken.
+     */
+    @Override
+    public JsonNode next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        JsonNode command;
+        try {
+            command = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a command");
+        }
+        if (command == END) {
+            finished = true;
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }
+        return command;
+    }
+
+    /**
+     Stops the parser, even if the input is not over, and closes the source.
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            source.close();
+        }
+    }
+}
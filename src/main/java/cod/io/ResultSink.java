@@ -0,0 +1,17 @@
+package cod.io;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ Destination of the results of executed commands, written in order.
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     Appends one result to the output.
+     */
+    void write(JsonNode result) throws IOException;
+}
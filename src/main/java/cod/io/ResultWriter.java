@@ -0,0 +1,57 @@
+package cod.io;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ Writes command results to the output file as they are produced. The array is
+ opened up front, every result is appended as soon as its command finishes and
+ the array is closed at the end, producing the same pretty-printed document as
+ serializing the whole result list at once.
+ */
+public final class ResultWriter implements ResultSink {
+    private static final int FLUSH_INTERVAL = 64;
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private int unflushed = 0;
+
+    public ResultWriter(final ObjectMapper mapper, final File file) throws IOException {
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = mapper.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        this.generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        this.generator.writeStartArray();
+    }
+
+    /**
+     Appends one result to the output array, flushing every few results.
+     */
+    @Override
+    public void write(final JsonNode result) throws IOException {
+        writer.writeValue(generator, result);
+        if (++unflushed >= FLUSH_INTERVAL) {
+            generator.flush();
+            unflushed = 0;
+        }
+    }
+
+    /**
+     Closes the output array and the underlying file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cod.io;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import cod.model.Comment;
+import cod.model.Developer;
+import cod.model.Milestone;
+import cod.model.Ticket;
+import cod.model.TicketAction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ Shared serialization service. One mapper is configured once for the whole
+ application, so its serializer caches stay warm across commands, and the
+ writers of the model types are resolved up front instead of on every call.
+ */
+public final class Serialization {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final ObjectWriter TICKET = MAPPER.writerFor(Ticket.class);
+    public static final ObjectWriter MILESTONE = MAPPER.writerFor(Milestone.class);
+    public static final ObjectWriter TICKET_ACTION = MAPPER.writerFor(TicketAction.class);
+    public static final ObjectWriter COMMENTS =
+            MAPPER.writerFor(new TypeReference<List<Comment>>() { });
+    public static final ObjectWriter DEVELOPER = MAPPER.writerFor(Developer.class);
+
+    /**
+     Private constructor to prevent instantiation of utility class.
+     */
+    private Serialization() {
+    }
+
+    /**
+     Gets the shared mapper, also used as the factory of result nodes.
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    /**
+     Converts a value to a tree with one of the pre-resolved writers. Same
+     result as ObjectMapper.valueToTree, without looking up the serializer.
+     */
+    public static <T extends JsonNode> T toTree(final ObjectWriter writer, final Object value) {
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            writer.writeValue(buffer, value);
+            return MAPPER.readTree(buffer.asParser());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
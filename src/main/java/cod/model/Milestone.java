@@ -3,11 +3,15 @@ package cod.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import cod.database.Database;
+import cod.utils.DateUtils;
 
-import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @JsonPropertyOrder({
@@ -20,8 +24,15 @@ public final class Milestone {
 
     private String name;
     private List<String> blockingFor = new ArrayList<>();
-    private String dueDate;
-    private String createdAt;
+    // dates as epoch days; the text is only kept for a value that is not a date
+    @JsonIgnore
+    private int dueDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String dueDateText;
+    @JsonIgnore
+    private int createdDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String createdAtText;
     private List<Integer> tickets = new ArrayList<>();
     private List<String> assignedDevs = new ArrayList<>();
     private String createdBy;
@@ -36,6 +47,18 @@ public final class Milestone {
     @JsonIgnore
     private boolean unblockedNotified = false;
 
+    @JsonIgnore
+    private Map<Integer, Integer> ticketCounts = new HashMap<>();
+    @JsonIgnore
+    private final Set<Integer> openTicketIds = new HashSet<>();
+    @JsonIgnore
+    private final Set<Integer> closedTicketIds = new HashSet<>();
+    @JsonIgnore
+    private int closedEntries = 0;
+
+    @JsonIgnore
+    private Database database;
+
     public Milestone() {
     }
 
@@ -71,28 +94,44 @@ public final class Milestone {
      Gets the due date.
      */
     public String getDueDate() {
-        return dueDate;
+        return DateUtils.toIsoDate(dueDay, dueDateText);
+    }
+
+    /**
+     Gets the due date as an epoch day, or NO_DATE if there is none.
+     */
+    public int getDueDay() {
+        return dueDay;
     }
 
     /**
      Sets the due date.
      */
     public void setDueDate(final String dueDate) {
-        this.dueDate = dueDate;
+        this.dueDay = DateUtils.toEpochDay(dueDate);
+        this.dueDateText = dueDay == DateUtils.NO_DATE ? dueDate : null;
     }
 
     /**
      Gets the creation date.
      */
     public String getCreatedAt() {
-        return createdAt;
+        return DateUtils.toIsoDate(createdDay, createdAtText);
+    }
+
+    /**
+     Gets the creation date as an epoch day, or NO_DATE if there is none.
+     */
+    public int getCreatedDay() {
+        return createdDay;
     }
 
     /**
      * Sets the creation date.
      */
     public void setCreatedAt(final String createdAt) {
-        this.createdAt = createdAt;
+        this.createdDay = DateUtils.toEpochDay(createdAt);
+        this.createdAtText = createdDay == DateUtils.NO_DATE ? createdAt : null;
     }
 
     /**
@@ -103,10 +142,62 @@ public final class Milestone {
     }
 
     /**
-     Sets the list of ticket IDs.
+     Sets the list of ticket IDs. Open/closed tracking starts empty and is
+     filled in by the database through setTicketClosed.
      */
-    public void setTickets(final List<Integer> tickets) {
+    public synchronized void setTickets(final List<Integer> tickets) {
         this.tickets = tickets;
+        this.ticketCounts = new HashMap<>();
+        for (Integer tId : tickets) {
+            ticketCounts.merge(tId, 1, Integer::sum);
+        }
+        openTicketIds.clear();
+        closedTicketIds.clear();
+        closedEntries = 0;
+    }
+
+    /**
+     Records whether one of this milestone's tickets is currently CLOSED.
+     Ids that are not part of the milestone are ignored.
+     */
+    public synchronized void setTicketClosed(final int ticketId, final boolean closed) {
+        Integer count = ticketCounts.get(ticketId);
+        if (count == null) {
+            return;
+        }
+        if (closedTicketIds.remove(ticketId)) {
+            closedEntries -= count;
+        }
+        openTicketIds.remove(ticketId);
+        if (closed) {
+            closedTicketIds.add(ticketId);
+            closedEntries += count;
+        } else {
+            openTicketIds.add(ticketId);
+        }
+    }
+
+    /**
+     Gets a copy of the distinct ids of the milestone's existing tickets that
+     are not CLOSED.
+     */
+    @JsonIgnore
+    public synchronized Set<Integer> getOpenTicketIds() {
+        return Collections.unmodifiableSet(new HashSet<>(openTicketIds));
+    }
+
+    /**
+     Checks if at least one existing ticket of the milestone is not CLOSED.
+     */
+    public synchronized boolean hasOpenTickets() {
+        return !openTicketIds.isEmpty();
+    }
+
+    /**
+     Checks if every ticket of the milestone exists and is CLOSED.
+     */
+    public synchronized boolean areAllTicketsClosed() {
+        return closedEntries == tickets.size();
     }
 
     /**
@@ -151,6 +242,13 @@ public final class Milestone {
         this.status = status;
     }
 
+    /**
+     Sets the database this milestone is stored in, done once when it is added.
+     */
+    public void setDatabase(final Database database) {
+        this.database = database;
+    }
+
     /**
      Checks if the due tomorrow notification was sent.
      */
@@ -183,19 +281,7 @@ public final class Milestone {
      Checks if this milestone is blocked by other milestones.
      */
     public boolean getIsBlocked() {
-        Database db = Database.getInstance();
-        for (Milestone other : db.getMilestones()) {
-            if (other.getBlockingFor().contains(this.name)) {
-                boolean isBlockingActive = other.getTickets().stream()
-                        .map(db::getTicket)
-                        .anyMatch(t -> t != null && !"CLOSED".equals(t.getStatus()));
-
-                if (isBlockingActive) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return database != null && database.getMilestoneGraph().isBlocked(this);
     }
 
     /**
@@ -203,13 +289,7 @@ public final class Milestone {
      */
     @JsonIgnore
     public boolean hasDependencies() {
-        Database db = Database.getInstance();
-        for (Milestone other : db.getMilestones()) {
-            if (other.getBlockingFor().contains(this.name)) {
-                return true;
-            }
-        }
-        return false;
+        return database != null && database.getMilestoneGraph().hasDependencies(this);
     }
 
     /**
@@ -226,40 +306,40 @@ public final class Milestone {
         return this.overdueByVal;
     }
 
+    /**
+     Restores the stored time fields, used when loading a snapshot.
+     */
+    public void restoreTimeFields(final int daysUntilDue, final int overdueBy) {
+        this.daysUntilDueVal = daysUntilDue;
+        this.overdueByVal = overdueBy;
+    }
+
     /**
      Gets the list of open ticket IDs.
      */
-    public List<Integer> getOpenTickets() {
-        Database db = Database.getInstance();
+    public synchronized List<Integer> getOpenTickets() {
         return tickets.stream()
-                .filter(id -> {
-                    Ticket t = db.getTicket(id);
-                    return t != null && !"CLOSED".equals(t.getStatus());
-                })
+                .filter(openTicketIds::contains)
                 .collect(Collectors.toList());
     }
 
     /**
      Gets the list of closed ticket IDs.
      */
-    public List<Integer> getClosedTickets() {
-        Database db = Database.getInstance();
+    public synchronized List<Integer> getClosedTickets() {
         return tickets.stream()
-                .filter(id -> {
-                    Ticket t = db.getTicket(id);
-                    return t != null && "CLOSED".equals(t.getStatus());
-                })
+                .filter(closedTicketIds::contains)
                 .collect(Collectors.toList());
     }
 
     /**
      Calculates the completion percentage of the milestone.
      */
-    public Double getCompletionPercentage() {
+    public synchronized Double getCompletionPercentage() {
         if (tickets.isEmpty()) {
             return 0.0;
         }
-        double closed = getClosedTickets().size();
+        double closed = closedEntries;
         return Math.round((closed / tickets.size()) * SCALE_100) / SCALE_100;
     }
 
@@ -267,12 +347,11 @@ public final class Milestone {
      Gets the repartition of tickets among developers.
      */
     public List<RepartitionEntry> getRepartition() {
-        Database db = Database.getInstance();
         List<RepartitionEntry> list = new ArrayList<>();
         for (String devUser : assignedDevs) {
             List<Integer> devTickets = tickets.stream()
                     .filter(id -> {
-                        Ticket t = db.getTicket(id);
+                        Ticket t = database == null ? null : database.getTicket(id);
                         return t != null && devUser.equals(t.getAssignedTo());
                     })
                     .collect(Collectors.toList());
@@ -300,41 +379,42 @@ public final class Milestone {
     }
 
     /**
-     Calculates time-related fields (daysUntilDue, overdueBy) based on current timestamp.
+     Computes the days left until the due date as of the given timestamp, or as
+     of the last solve date once the milestone is completed. Nothing is stored,
+     so concurrent views with different timestamps do not interfere.
+     return the signed distance to the due date, negative when overdue
      */
-    public void calculateTimeFields(final String currentTimestamp) {
-        if (currentTimestamp == null || currentTimestamp.isEmpty()) {
-            return;
-        }
+    public long daysBeforeDue(final String currentTimestamp) {
+        int comparisonDay = DateUtils.parseEpochDay(currentTimestamp);
+        int due = dueDay != DateUtils.NO_DATE ? dueDay : DateUtils.parseEpochDay(dueDateText);
 
-        LocalDate comparisonDate = LocalDate.parse(currentTimestamp);
-
-        if ("COMPLETED".equals(this.status)) {
-            Database db = Database.getInstance();
-            LocalDate maxSolved = null;
+        if ("COMPLETED".equals(this.status) && database != null) {
+            int maxSolved = DateUtils.NO_DATE;
             for (Integer tId : tickets) {
-                Ticket t = db.getTicket(tId);
-                if (t != null && t.getSolvedAt() != null && !t.getSolvedAt().isEmpty()) {
-                    LocalDate solved = LocalDate.parse(t.getSolvedAt());
-                    if (maxSolved == null || solved.isAfter(maxSolved)) {
-                        maxSolved = solved;
-                    }
+                Ticket t = database.getTicket(tId);
+                if (t != null && t.getSolvedDay() > maxSolved) {
+                    maxSolved = t.getSolvedDay();
                 }
             }
-            if (maxSolved != null) {
-                comparisonDate = maxSolved;
+            if (maxSolved != DateUtils.NO_DATE) {
+                comparisonDay = maxSolved;
             }
         }
 
-        LocalDate due = LocalDate.parse(this.dueDate);
-        long diff = ChronoUnit.DAYS.between(comparisonDate, due);
+        return (long) due - comparisonDay;
+    }
+
+    /**
+     Converts the result of daysBeforeDue to the daysUntilDue field.
+     */
+    public static int daysUntilDue(final long daysBeforeDue) {
+        return daysBeforeDue >= 0 ? (int) daysBeforeDue + 1 : 0;
+    }
 
-        if (diff >= 0) {
-            this.daysUntilDueVal = (int) diff + 1;
-            this.overdueByVal = 0;
-        } else {
-            this.daysUntilDueVal = 0;
-            this.overdueByVal = (int) Math.abs(diff) + 1;
-        }
+    /**
+     Converts the result of daysBeforeDue to the overdueBy field.
+     */
+    public static int overdueBy(final long daysBeforeDue) {
+        return daysBeforeDue >= 0 ? 0 : (int) Math.abs(daysBeforeDue) + 1;
     }
 }
@@ -3,16 +3,20 @@ package cod.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import cod.database.Database;
 import cod.model.enums.TicketType;
+import cod.utils.DateUtils;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({
         "id", "type", "title", "businessPriority", "status",
-        "createdAt", "solvedAt", "reportedBy", "matchingWords"
+        "createdAt", "solvedAt", "reportedBy", "assignedTo", "assignedAt",
+        "comments", "matchingWords"
 })
-public class Ticket {
+public class Ticket implements Cloneable {
     private int id;
     private TicketType type;
     private String title;
@@ -28,9 +32,20 @@ public class Ticket {
 
     private String reportedBy = "";
     private String assignedTo = "";
-    private String assignedAt = "";
-    private String solvedAt = "";
-    private String createdAt = "";
+
+    // dates as epoch days; the text is only kept for a value that is not a date
+    @JsonIgnore
+    private int assignedDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String assignedAtText = "";
+    @JsonIgnore
+    private int solvedDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String solvedAtText = "";
+    @JsonIgnore
+    private int createdDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String createdAtText = "";
 
     private List<Comment> comments = new ArrayList<>();
 
@@ -60,6 +75,9 @@ public class Ticket {
     @JsonIgnore
     private String suggestedFix;
 
+    @JsonIgnore
+    private Database database;
+
     public Ticket() {
         this.status = "OPEN";
     }
@@ -69,6 +87,10 @@ public class Ticket {
      */
     public void addHistory(final TicketAction action) {
         this.history.add(action);
+        if (database != null) {
+            database.onTicketHistoryAdded(this, action);
+        }
+        touched();
     }
 
     /**
@@ -103,7 +125,10 @@ public class Ticket {
      Sets the ticket type.
      */
     public void setType(final TicketType type) {
+        TicketType previous = this.type;
         this.type = type;
+        changed(status, previous, businessPriority);
+        touched();
     }
 
     /**
@@ -118,6 +143,7 @@ public class Ticket {
      */
     public void setTitle(final String title) {
         this.title = title;
+        touched();
     }
 
     /**
@@ -131,18 +157,24 @@ public class Ticket {
      Sets the business priority.
      */
     public void setBusinessPriority(final String businessPriority) {
+        String previous = this.businessPriority;
         this.businessPriority = businessPriority;
         if (this.initialBusinessPriority == null) {
             this.initialBusinessPriority = businessPriority;
         }
+        changed(status, type, previous);
+        touched();
     }
 
     /**
      Resets the initial priority and current priority to the specified value.
      */
     public void resetInitialPriority(final String p) {
+        String previous = this.businessPriority;
         this.initialBusinessPriority = p;
         this.businessPriority = p;
+        changed(status, type, previous);
+        touched();
     }
 
     /**
@@ -156,7 +188,12 @@ public class Ticket {
      Sets the computed priority.
      */
     public void setComputedPriority(final String priority) {
+        String previous = this.businessPriority;
         this.businessPriority = priority;
+        changed(status, type, previous);
+        if (!Objects.equals(previous, priority)) {
+            touched();
+        }
     }
 
     /**
@@ -170,7 +207,67 @@ public class Ticket {
      Sets the status.
      */
     public void setStatus(final String status) {
+        String previous = this.status;
         this.status = status;
+        changed(previous, type, businessPriority);
+        touched();
+    }
+
+    /**
+     Sets the database this ticket is stored in, done once when it is added.
+     */
+    public void setDatabase(final Database database) {
+        this.database = database;
+    }
+
+    /**
+     Removes the comment at the given position.
+     */
+    public void removeComment(final int index) {
+        this.comments.remove(index);
+        touched();
+    }
+
+    /**
+     Creates a detached copy of the ticket, of the same class. The copy has its
+     own comment and history lists, sharing their elements, and belongs to no
+     database; it is meant to be read, not changed.
+     */
+    public Ticket copy() {
+        try {
+            Ticket c = (Ticket) super.clone();
+            c.comments = new ArrayList<>(comments);
+            c.history = new ArrayList<>(history);
+            c.database = null;
+            return c;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     Tells the owning database that the ticket changed, so the next version
+     pinned for reading copies it again.
+     */
+    private void touched() {
+        if (database != null) {
+            database.onTicketTouched(this);
+        }
+    }
+
+    /**
+     Lets the owning database reindex the ticket after an indexed field changed.
+     */
+    private void changed(final String previousStatus, final TicketType previousType,
+                         final String previousPriority) {
+        if (database == null) {
+            return;
+        }
+        if (Objects.equals(previousStatus, status) && previousType == type
+                && Objects.equals(previousPriority, businessPriority)) {
+            return;
+        }
+        database.onTicketChanged(this, previousStatus, previousType, previousPriority);
     }
 
     /**
@@ -185,6 +282,7 @@ public class Ticket {
      */
     public void setExpertiseArea(final String expertiseArea) {
         this.expertiseArea = expertiseArea;
+        touched();
     }
 
     /**
@@ -199,6 +297,7 @@ public class Ticket {
      */
     public void setDescription(final String description) {
         this.description = description;
+        touched();
     }
 
     /**
@@ -212,7 +311,12 @@ public class Ticket {
      Sets the reporter username.
      */
     public void setReportedBy(final String reportedBy) {
+        String previous = this.reportedBy;
         this.reportedBy = reportedBy;
+        if (database != null && !Objects.equals(previous, reportedBy)) {
+            database.onTicketReporterChanged(this, previous);
+        }
+        touched();
     }
 
     /**
@@ -226,49 +330,81 @@ public class Ticket {
      Sets the assignee username.
      */
     public void setAssignedTo(final String assignedTo) {
+        String previous = this.assignedTo;
         this.assignedTo = assignedTo;
+        if (database != null && !Objects.equals(previous, assignedTo)) {
+            database.onTicketAssigneeChanged(this, previous);
+        }
+        touched();
     }
 
     /**
      Gets the assignment timestamp.
      */
     public String getAssignedAt() {
-        return assignedAt;
+        return DateUtils.toIsoDate(assignedDay, assignedAtText);
+    }
+
+    /**
+     Gets the assignment date as an epoch day, or NO_DATE if there is none.
+     */
+    public int getAssignedDay() {
+        return assignedDay;
     }
 
     /**
      Sets the assignment timestamp.
      */
     public void setAssignedAt(final String assignedAt) {
-        this.assignedAt = assignedAt;
+        this.assignedDay = DateUtils.toEpochDay(assignedAt);
+        this.assignedAtText = assignedDay == DateUtils.NO_DATE ? assignedAt : null;
+        touched();
     }
 
     /**
      Gets the solved timestamp.
      */
     public String getSolvedAt() {
-        return solvedAt;
+        return DateUtils.toIsoDate(solvedDay, solvedAtText);
+    }
+
+    /**
+     Gets the solved date as an epoch day, or NO_DATE if there is none.
+     */
+    public int getSolvedDay() {
+        return solvedDay;
     }
 
     /**
      Sets the solved timestamp.
      */
     public void setSolvedAt(final String solvedAt) {
-        this.solvedAt = solvedAt;
+        this.solvedDay = DateUtils.toEpochDay(solvedAt);
+        this.solvedAtText = solvedDay == DateUtils.NO_DATE ? solvedAt : null;
+        touched();
     }
 
     /**
      Gets the creation timestamp.
      */
     public String getCreatedAt() {
-        return createdAt;
+        return DateUtils.toIsoDate(createdDay, createdAtText);
+    }
+
+    /**
+     Gets the creation date as an epoch day, or NO_DATE if there is none.
+     */
+    public int getCreatedDay() {
+        return createdDay;
     }
 
     /**
      Sets the creation timestamp.
      */
     public void setCreatedAt(final String createdAt) {
-        this.createdAt = createdAt;
+        this.createdDay = DateUtils.toEpochDay(createdAt);
+        this.createdAtText = createdDay == DateUtils.NO_DATE ? createdAt : null;
+        touched();
     }
 
     /**
@@ -283,6 +419,7 @@ public class Ticket {
      */
     public void setComments(final List<Comment> comments) {
         this.comments = comments;
+        touched();
     }
 
     /**
@@ -290,6 +427,7 @@ public class Ticket {
      */
     public void addComment(final Comment comment) {
         this.comments.add(comment);
+        touched();
     }
 
     /**
@@ -304,6 +442,7 @@ public class Ticket {
      */
     public void setSeverity(final String severity) {
         this.severity = severity;
+        touched();
     }
 
     /**
@@ -318,6 +457,7 @@ public class Ticket {
      */
     public void setExpectedBehavior(final String expectedBehavior) {
         this.expectedBehavior = expectedBehavior;
+        touched();
     }
 
     /**
@@ -332,6 +472,7 @@ public class Ticket {
      */
     public void setActualBehavior(final String actualBehavior) {
         this.actualBehavior = actualBehavior;
+        touched();
     }
 
     /**
@@ -346,6 +487,7 @@ public class Ticket {
      */
     public void setFrequency(final String frequency) {
         this.frequency = frequency;
+        touched();
     }
 
     /**
@@ -360,6 +502,7 @@ public class Ticket {
      */
     public void setEnvironment(final String environment) {
         this.environment = environment;
+        touched();
     }
 
     /**
@@ -374,6 +517,7 @@ public class Ticket {
      */
     public void setErrorCode(final Integer errorCode) {
         this.errorCode = errorCode;
+        touched();
     }
 
     /**
@@ -388,6 +532,7 @@ public class Ticket {
      */
     public void setBusinessValue(final String businessValue) {
         this.businessValue = businessValue;
+        touched();
     }
 
     /**
@@ -403,6 +548,7 @@ public class Ticket {
      */
     public void setCustomerDemand(final String customerDemand) {
         this.customerDemand = customerDemand;
+        touched();
     }
 
     /**
@@ -417,6 +563,7 @@ public class Ticket {
      */
     public void setUiElementId(final String uiElementId) {
         this.uiElementId = uiElementId;
+        touched();
     }
 
     /**
@@ -431,6 +578,7 @@ public class Ticket {
      */
     public void setUsabilityScore(final Integer usabilityScore) {
         this.usabilityScore = usabilityScore;
+        touched();
     }
 
     /**
@@ -445,5 +593,6 @@ public class Ticket {
      */
     public void setSuggestedFix(final String suggestedFix) {
         this.suggestedFix = suggestedFix;
+        touched();
     }
 }
@@ -1,7 +1,9 @@
 package cod.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import cod.utils.DateUtils;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @JsonPropertyOrder({ "milestone", "from", "to", "by", "timestamp", "action" })
@@ -10,7 +12,10 @@ public final class TicketAction {
     private String from;
     private String to;
     private String by;
-    private String timestamp;
+    @JsonIgnore
+    private int timestampDay = DateUtils.NO_DATE;
+    @JsonIgnore
+    private String timestampText;
     private String action;
 
     public TicketAction() {
@@ -49,11 +54,22 @@ public final class TicketAction {
     }
 
     public String getTimestamp() {
-        return timestamp;
+        return DateUtils.toIsoDate(timestampDay, timestampText);
     }
 
+    /**
+     Gets the timestamp as an epoch day, or NO_DATE if it is not a date.
+     */
+    public int getTimestampDay() {
+        return timestampDay;
+    }
+
+    /**
+     Sets the timestamp, kept as an epoch day when it is an ISO date.
+     */
     public void setTimestamp(final String timestamp) {
-        this.timestamp = timestamp;
+        this.timestampDay = DateUtils.toEpochDay(timestamp);
+        this.timestampText = timestampDay == DateUtils.NO_DATE ? timestamp : null;
     }
 
     public String getAction() {
@@ -0,0 +1,138 @@
+package cod.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ Serialized form of a ticket as shown by one of the views. The fields of the
+ projection are copied when the view is created and written straight to the
+ output generator, in the same order and with the same null handling as the
+ default serialization of Ticket, without building an intermediate tree.
+ */
+public final class TicketView implements JsonSerializable {
+
+    /**
+     The sets of ticket fields exposed by the views.
+     */
+    public enum Projection {
+        /** Every public field, as listed by viewTickets. */
+        FULL(true, true, true, true),
+        /** Listing of viewAssignedTickets: no assignee, no solve date. */
+        ASSIGNED(false, false, true, true),
+        /** Search results: no assignment and no comments. */
+        SEARCH(true, false, false, false);
+
+        private final boolean solvedAt;
+        private final boolean assignedTo;
+        private final boolean assignedAt;
+        private final boolean comments;
+
+        Projection(final boolean solvedAt, final boolean assignedTo,
+                   final boolean assignedAt, final boolean comments) {
+            this.solvedAt = solvedAt;
+            this.assignedTo = assignedTo;
+            this.assignedAt = assignedAt;
+            this.comments = comments;
+        }
+    }
+
+    private final Projection projection;
+    private final int id;
+    private final String type;
+    private final String title;
+    private final String businessPriority;
+    private final String status;
+    private final String createdAt;
+    private final String solvedAt;
+    private final String reportedBy;
+    private final String assignedTo;
+    private final String assignedAt;
+    private final List<Comment> comments;
+    private final List<String> matchingWords;
+
+    private TicketView(final Ticket t, final Projection projection,
+                       final List<String> matchingWords) {
+        this.projection = projection;
+        this.id = t.getId();
+        this.type = t.getType() == null ? null : t.getType().name();
+        this.title = t.getTitle();
+        this.businessPriority = t.getBusinessPriority();
+        this.status = t.getStatus();
+        this.createdAt = t.getCreatedAt();
+        this.solvedAt = t.getSolvedAt();
+        this.reportedBy = t.getReportedBy();
+        this.assignedTo = t.getAssignedTo();
+        this.assignedAt = t.getAssignedAt();
+        this.comments = !projection.comments || t.getComments() == null
+                ? null : new ArrayList<>(t.getComments());
+        this.matchingWords = matchingWords;
+    }
+
+    /**
+     Creates the view of a ticket for the given projection.
+     */
+    public static TicketView of(final Ticket t, final Projection projection) {
+        return new TicketView(t, projection, Collections.emptyList());
+    }
+
+    /**
+     Creates the search view of a ticket, listing the keywords it matched.
+     */
+    public static TicketView search(final Ticket t, final List<String> matchingWords) {
+        return new TicketView(t, Projection.SEARCH, new ArrayList<>(matchingWords));
+    }
+
+    @Override
+    public void serialize(final JsonGenerator gen, final SerializerProvider provider)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeNumberField("id", id);
+        writeField(gen, "type", type);
+        writeField(gen, "title", title);
+        writeField(gen, "businessPriority", businessPriority);
+        writeField(gen, "status", status);
+        writeField(gen, "createdAt", createdAt);
+        if (projection.solvedAt) {
+            writeField(gen, "solvedAt", solvedAt);
+        }
+        writeField(gen, "reportedBy", reportedBy);
+        if (projection.assignedTo) {
+            writeField(gen, "assignedTo", assignedTo);
+        }
+        if (projection.assignedAt) {
+            writeField(gen, "assignedAt", assignedAt);
+        }
+        if (comments != null) {
+            // comments keep their own Jackson layout
+            provider.defaultSerializeField("comments", comments, gen);
+        }
+        if (!matchingWords.isEmpty()) {
+            gen.writeArrayFieldStart("matchingWords");
+            for (String word : matchingWords) {
+                gen.writeString(word);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public void serializeWithType(final JsonGenerator gen, final SerializerProvider provider,
+                                  final TypeSerializer typeSer) throws IOException {
+        serialize(gen, provider);
+    }
+
+    private static void writeField(final JsonGenerator gen, final String name,
+                                   final String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+}
@@ -77,16 +77,26 @@ public abstract class User {
     }
 
     /**
-     * Adds a single notification to the user's list.
+     * Adds several notifications to the user's list, in order, as one step.
      */
-    public final void addNotification(final String notification) {
-        this.notifications.add(notification);
+    public final synchronized void addNotifications(final List<String> batch) {
+        this.notifications.addAll(batch);
     }
 
     /**
      * Clears all notifications for the user.
      */
-    public final void clearNotifications() {
+    public final synchronized void clearNotifications() {
         this.notifications.clear();
     }
+
+    /**
+     * Returns the pending notifications and clears them, as one step, so a
+     * notification added concurrently is either returned or kept.
+     */
+    public final synchronized List<String> takeNotifications() {
+        List<String> pending = new ArrayList<>(notifications);
+        notifications.clear();
+        return pending;
+    }
 }
@@ -1,12 +1,41 @@
 package cod.utils;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
 
 /**
- Utility class for date operations.
+ Utility class for date operations. Dates are handled as epoch days, the
+ number of days since 1970-01-01, so date math is integer arithmetic; ISO
+ strings are only parsed from the commands and formatted back for the output.
+
+ Commands keep repeating the same few timestamps, so both directions go
+ through a small direct-mapped cache: a string is parsed, and a day is
+ formatted, once until another value takes its slot.
  */
 public final class DateUtils {
+    /**
+     The epoch day standing for a missing date, or for a string that is not an
+     ISO date.
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int CACHE_SIZE = 1024;
+    private static final ParsedDate[] PARSED = new ParsedDate[CACHE_SIZE];
+    private static final ParsedDate[] FORMATTED = new ParsedDate[CACHE_SIZE];
+
+    /**
+     A date string and its epoch day; immutable, so cache slots can be read and
+     replaced without locking.
+     */
+    private static final class ParsedDate {
+        private final String text;
+        private final int day;
+
+        ParsedDate(final String text, final int day) {
+            this.text = text;
+            this.day = day;
+        }
+    }
 
     /**
      Private constructor to prevent instantiation of utility class.
@@ -15,18 +44,75 @@ public final class DateUtils {
     }
 
     /**
-     Calculates the number of days between two dates (inclusive).
+     Converts an ISO date (yyyy-MM-dd) to its epoch day.
+     return the epoch day, or NO_DATE if the string is null, empty or not an
+     ISO date
+     */
+    public static int toEpochDay(final String date) {
+        if (date == null || date.isEmpty()) {
+            return NO_DATE;
+        }
+        int slot = date.hashCode() & (CACHE_SIZE - 1);
+        ParsedDate cached = PARSED[slot];
+        if (cached != null && cached.text.equals(date)) {
+            return cached.day;
+        }
+        int day;
+        try {
+            day = (int) LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            day = NO_DATE;
+        }
+        PARSED[slot] = new ParsedDate(date, day);
+        return day;
+    }
+
+    /**
+     Converts an ISO date to its epoch day, failing on anything else like
+     LocalDate.parse does. Used for the command timestamps date math cannot do
+     without, so a bad one is rejected instead of turning into NO_DATE.
+     */
+    public static int parseEpochDay(final String date) {
+        int day = toEpochDay(date);
+        if (day == NO_DATE) {
+            throw new DateTimeParseException("Text '" + date + "' is not an ISO date",
+                    String.valueOf(date), 0);
+        }
+        return day;
+    }
+
+    /**
+     Formats an epoch day as an ISO date.
+     return the ISO date, or null for NO_DATE
+     */
+    public static String toIsoDate(final int day) {
+        if (day == NO_DATE) {
+            return null;
+        }
+        int slot = day & (CACHE_SIZE - 1);
+        ParsedDate cached = FORMATTED[slot];
+        if (cached != null && cached.day == day) {
+            return cached.text;
+        }
+        String text = LocalDate.ofEpochDay(day).toString();
+        FORMATTED[slot] = new ParsedDate(text, day);
+        return text;
+    }
+
+    /**
+     Formats an epoch day as an ISO date, falling back to the given text for
+     NO_DATE. Fields holding a date keep the string they were set to only when
+     it is not a date, and read it back through this.
      */
-    public static int daysBetween(final String start, final String end) {
-        LocalDate d1 = LocalDate.parse(start);
-        LocalDate d2 = LocalDate.parse(end);
-        return (int) ChronoUnit.DAYS.between(d1, d2) + 1;
+    public static String toIsoDate(final int day, final String fallback) {
+        return day == NO_DATE ? fallback : toIsoDate(day);
     }
 
     /**
-     Parses a date string into a LocalDate.
+     Calculates the number of days between two dates (inclusive). Neither may
+     be NO_DATE.
      */
-    public static LocalDate parse(final String date) {
-        return LocalDate.parse(date);
+    public static int daysBetween(final int startDay, final int endDay) {
+        return endDay - startDay + 1;
     }
 }
@@ -5,8 +5,9 @@ import cod.model.Milestone;
 import cod.model.Ticket;
 import cod.model.User;
 
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  Utility class for managing and sending notifications to users.
@@ -22,89 +23,96 @@ public final class NotificationManager {
     /**
      Sends a notification to a specific user.
      */
-    public static void notifyUser(final String username, final String message) {
-        Database db = Database.getInstance();
-        User user = db.getUser(username);
-        if (user != null) {
-            user.addNotification(message);
-        }
+    public static void notifyUser(final Database db, final String username,
+                                  final String message) {
+        notifyUsers(db, List.of(username), message);
     }
 
     /**
-     Sends a notification to a list of users.
+     Sends a notification to a list of users. The users are looked up now and
+     the notification is queued on the dispatcher of the database, which
+     delivers it later; call deliverPending before reading notifications.
      */
-    public static void notifyUsers(final List<String> usernames, final String message) {
+    public static void notifyUsers(final Database db, final List<String> usernames,
+                                   final String message) {
+        List<User> recipients = new ArrayList<>(usernames.size());
         for (String u : usernames) {
-            notifyUser(u, message);
+            User user = db.getUser(u);
+            if (user != null) {
+                recipients.add(user);
+            }
         }
+        db.getNotificationDispatcher().publish(recipients, message);
+    }
+
+    /**
+     Delivers every notification sent so far, so the users' lists are complete.
+     */
+    public static void deliverPending(final Database db) {
+        db.getNotificationDispatcher().flush();
     }
 
     /**
      Checks for upcoming deadlines and notifies assigned developers if a milestone is due tomorrow.
+     The deadline scheduler hands back only the reminders that became due.
      */
     public static void checkDeadlines(final Database db, final String timestamp) {
         if (timestamp == null || timestamp.isEmpty()) {
             return;
         }
-        LocalDate current = LocalDate.parse(timestamp);
+        int current = DateUtils.parseEpochDay(timestamp);
 
-        for (Milestone m : db.getMilestones()) {
-            if (m.isNotifiedDueTomorrow()) {
-                continue;
-            }
-
-            if (m.getIsBlocked()) {
-                continue;
-            }
-
-            LocalDate due = LocalDate.parse(m.getDueDate());
-            LocalDate reminderDate = due.minusDays(1);
+        for (Milestone m : db.getDeadlineScheduler().takeDue(current)) {
+            m.setNotifiedDueTomorrow(true);
+            String msg = "Milestone " + m.getName()
+                    + " is due tomorrow. All unresolved tickets are now CRITICAL.";
 
-            if (!current.isBefore(reminderDate) && current.isBefore(due)) {
-                m.setNotifiedDueTomorrow(true);
-                String msg = "Milestone " + m.getName()
-                        + " is due tomorrow. All unresolved tickets are now CRITICAL.";
-
-                notifyUsers(m.getAssignedDevs(), msg);
-                updateTicketsToCritical(db, m);
-            }
+            notifyUsers(db, m.getAssignedDevs(), msg);
+            updateTicketsToCritical(db, m);
         }
     }
 
     /**
      Checks if blocked milestones have been unblocked after their due date.
+     Only milestones the dependency graph reported as newly unblocked are visited.
      */
     public static void checkUnblocking(final Database db, final String timestamp) {
         if (timestamp == null || timestamp.isEmpty()) {
             return;
         }
-        LocalDate current = LocalDate.parse(timestamp);
+        int current = DateUtils.parseEpochDay(timestamp);
 
-        for (Milestone m : db.getMilestones()) {
-            if (m.hasDependencies()) {
-                boolean isBlocked = m.getIsBlocked();
+        for (Milestone m : db.getMilestoneGraph().takeUnblocked()) {
+            m.setUnblockedNotified(true);
 
-                if (!isBlocked && !m.isUnblockedNotified()) {
-                    m.setUnblockedNotified(true);
-
-                    LocalDate due = LocalDate.parse(m.getDueDate());
-                    if (current.isAfter(due)) {
-                        String msg = "Milestone " + m.getName()
-                                + " was unblocked after due date. "
-                                + "All active tickets are now CRITICAL.";
-                        notifyUsers(m.getAssignedDevs(), msg);
-                        updateTicketsToCritical(db, m);
-                    }
-                }
+            if (m.getDueDay() != DateUtils.NO_DATE && current > m.getDueDay()) {
+                String msg = "Milestone " + m.getName()
+                        + " was unblocked after due date. "
+                        + "All active tickets are now CRITICAL.";
+                notifyUsers(db, m.getAssignedDevs(), msg);
+                updateTicketsToCritical(db, m);
             }
         }
     }
 
+    /**
+     Raises every unresolved ticket of the milestone to CRITICAL, holding one
+     ticket lock at a time, so callers must not hold a ticket lock themselves.
+     */
     private static void updateTicketsToCritical(final Database db, final Milestone m) {
         for (Integer tId : m.getTickets()) {
             Ticket t = db.getTicket(tId);
-            if (t != null && !"CLOSED".equals(t.getStatus())) {
-                t.setBusinessPriority("CRITICAL");
+            if (t == null) {
+                continue;
+            }
+            Lock ticketLock = db.ticketLock(tId);
+            ticketLock.lock();
+            try {
+                if (!"CLOSED".equals(t.getStatus())) {
+                    t.setBusinessPriority("CRITICAL");
+                }
+            } finally {
+                ticketLock.unlock();
             }
         }
     }
@@ -0,0 +1,228 @@
+package cod.utils;
+
+import cod.model.Ticket;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToDoubleFunction;
+
+/**
+ Counts tickets by type and priority and collects per-type scores for the
+ report commands. Large ticket lists are split into fixed chunks scored on the
+ common fork/join pool, and the chunk accumulators are merged left to right.
+
+ Every chunk keeps its scores in ticket order, and merging concatenates them,
+ so sums and averages are computed over the same values in the same order as a
+ sequential loop would: the parallel result is identical to the sequential one,
+ not just close to it.
+ */
+public final class ReportAccumulator {
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int CHUNK_SIZE = 1024;
+    private static final boolean PARALLEL = ForkJoinPool.getCommonPoolParallelism() > 1;
+    private static final String[] TYPES = {"BUG", "FEATURE_REQUEST", "UI_FEEDBACK"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    /**
+     Scores in the order they were added, without boxing.
+     */
+    private static final class Scores {
+        private double[] values = new double[0];
+        private int size = 0;
+
+        void add(final double value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(1, size * 2));
+            }
+            values[size++] = value;
+        }
+
+        void addAll(final Scores other) {
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, size + other.size);
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+    }
+
+    private final List<ToDoubleFunction<Ticket>> scorers;
+    private final Map<String, Integer> ticketsByType = new LinkedHashMap<>();
+    private final Map<String, Integer> ticketsByPriority = new LinkedHashMap<>();
+    private final Map<String, Scores[]> scoresByType = new LinkedHashMap<>();
+    private int total = 0;
+
+    private ReportAccumulator(final List<ToDoubleFunction<Ticket>> scorers) {
+        this.scorers = scorers;
+        for (String type : TYPES) {
+            ticketsByType.put(type, 0);
+            scoresByType.put(type, newScores());
+        }
+        for (String priority : PRIORITIES) {
+            ticketsByPriority.put(priority, 0);
+        }
+    }
+
+    /**
+     Accumulates the given tickets, in parallel above a size threshold.
+     param scorers the scores to collect for every ticket; a scorer returns NaN
+     for a ticket that must not count towards its score
+     */
+    public static ReportAccumulator collect(final List<Ticket> tickets,
+                                            final List<ToDoubleFunction<Ticket>> scorers) {
+        if (!PARALLEL || tickets.size() < PARALLEL_THRESHOLD) {
+            return accumulate(tickets, 0, tickets.size(), scorers);
+        }
+        return collectInChunks(tickets, scorers);
+    }
+
+    /**
+     Accumulates the given tickets in fixed chunks on the common pool, whatever
+     their number.
+     */
+    public static ReportAccumulator collectInChunks(final List<Ticket> tickets,
+                                                    final List<ToDoubleFunction<Ticket>> scorers) {
+        return ForkJoinPool.commonPool().invoke(
+                new ChunkTask(tickets, 0, tickets.size(), scorers));
+    }
+
+    private static ReportAccumulator accumulate(final List<Ticket> tickets, final int from,
+                                                final int to,
+                                                final List<ToDoubleFunction<Ticket>> scorers) {
+        ReportAccumulator acc = new ReportAccumulator(scorers);
+        for (int i = from; i < to; i++) {
+            acc.add(tickets.get(i));
+        }
+        return acc;
+    }
+
+    /**
+     Splits a range of tickets down to fixed chunks and merges their
+     accumulators in ticket order.
+     */
+    @SuppressWarnings("serial") // Serializable only through ForkJoinTask, never serialized
+    private static final class ChunkTask extends RecursiveTask<ReportAccumulator> {
+        private final List<Ticket> tickets;
+        private final int from;
+        private final int to;
+        private final List<ToDoubleFunction<Ticket>> scorers;
+
+        ChunkTask(final List<Ticket> tickets, final int from, final int to,
+                  final List<ToDoubleFunction<Ticket>> scorers) {
+            this.tickets = tickets;
+            this.from = from;
+            this.to = to;
+            this.scorers = scorers;
+        }
+
+        @Override
+        protected ReportAccumulator compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return accumulate(tickets, from, to, scorers);
+            }
+            int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            int mid = from + (chunks / 2) * CHUNK_SIZE;
+            ChunkTask left = new ChunkTask(tickets, from, mid, scorers);
+            left.fork();
+            ReportAccumulator right = new ChunkTask(tickets, mid, to, scorers).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private Scores[] newScores() {
+        Scores[] scores = new Scores[scorers.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = new Scores();
+        }
+        return scores;
+    }
+
+    private void add(final Ticket t) {
+        total++;
+        String type = t.getType().name();
+        ticketsByType.merge(type, 1, Integer::sum);
+
+        String priority = t.getBusinessPriority();
+        if (priority != null) {
+            ticketsByPriority.merge(priority, 1, Integer::sum);
+        }
+
+        Scores[] scores = scoresByType.computeIfAbsent(type, k -> newScores());
+        for (int i = 0; i < scores.length; i++) {
+            double score = scorers.get(i).applyAsDouble(t);
+            if (!Double.isNaN(score)) {
+                scores[i].add(score);
+            }
+        }
+    }
+
+    /**
+     Appends the accumulator of the tickets following this one's.
+     */
+    private ReportAccumulator merge(final ReportAccumulator next) {
+        total += next.total;
+        next.ticketsByType.forEach((k, v) -> ticketsByType.merge(k, v, Integer::sum));
+        next.ticketsByPriority.forEach((k, v) -> ticketsByPriority.merge(k, v, Integer::sum));
+        next.scoresByType.forEach((type, scores) -> {
+            Scores[] mine = scoresByType.computeIfAbsent(type, k -> newScores());
+            for (int i = 0; i < mine.length; i++) {
+                mine[i].addAll(scores[i]);
+            }
+        });
+        return this;
+    }
+
+    /**
+     Gets the number of accumulated tickets.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     Gets the ticket counts by type, BUG, FEATURE_REQUEST and UI_FEEDBACK first.
+     */
+    public Map<String, Integer> getTicketsByType() {
+        return ticketsByType;
+    }
+
+    /**
+     Gets the ticket counts by business priority, LOW to CRITICAL first, then
+     any other priority in the order it was met.
+     */
+    public Map<String, Integer> getTicketsByPriority() {
+        return ticketsByPriority;
+    }
+
+    /**
+     Checks if a score was collected for at least one ticket of the type.
+     */
+    public boolean hasScores(final int scorer, final String type) {
+        return scoresByType.get(type)[scorer].size > 0;
+    }
+
+    /**
+     Sums a score over the tickets of the type, adding in ticket order.
+     */
+    public double sum(final int scorer, final String type) {
+        Scores scores = scoresByType.get(type)[scorer];
+        double sum = 0.0;
+        for (int i = 0; i < scores.size; i++) {
+            sum += scores.values[i];
+        }
+        return sum;
+    }
+
+    /**
+     Averages a score over the tickets of the type, as DoubleStream.average does.
+     return the average, or 0 when no ticket of the type has the score
+     */
+    public double average(final int scorer, final String type) {
+        Scores scores = scoresByType.get(type)[scorer];
+        return Arrays.stream(scores.values, 0, scores.size).average().orElse(0.0);
+    }
+}
@@ -3,15 +3,25 @@ package main;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import cod.command.CommandFactory;
 import cod.command.ICommand;
+import cod.command.ReadOnlyBatch;
 import cod.database.Database;
+import cod.io.Checkpoint;
+import cod.io.CommandJournal;
+import cod.io.AsyncResultWriter;
+import cod.io.CommandReader;
+import cod.io.CommandSource;
+import cod.io.PrefetchingReader;
+import cod.io.ResultSink;
+import cod.io.ResultWriter;
+import cod.io.Serialization;
 import cod.model.User;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,86 +30,296 @@ public final class App {
     }
 
     private static final String INPUT_USERS_FIELD = "input/database/users.json";
-
-    private static final ObjectWriter WRITER =
-            new ObjectMapper().writer().withDefaultPrettyPrinter();
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+    private static final int GROUP_COMMIT_SIZE = 128;
+    private static final int CHECKPOINT_INTERVAL = 10_000;
+    private static final String SERVE_FLAG = "--serve";
+    private static final int PIPELINE_CAPACITY = 1024;
+    private static final boolean PIPELINED = Runtime.getRuntime().availableProcessors() > 1;
 
     /**
-     Runs the application processing logic.
+     Runs the application processing logic. Consecutive read-only commands run in
+     parallel, and results are written to the output in input order as soon as
+     they are available. Every run works on its own database, so several runs
+     may proceed concurrently.
+
+     On multi-core hosts the run is a pipeline: commands are parsed on one thread
+     and results serialized on another, both connected to the thread executing
+     the commands by bounded queues, so JSON work overlaps with execution while
+     memory stays flat.
      */
     public static void run(final String inputPath, final String outputPath) {
-        List<ObjectNode> outputs = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
+        run(inputPath, outputPath, null);
+    }
 
-        try {
-            Database.getInstance().reset();
+    /**
+     Runs the application on top of the state kept in journalDir. The state is
+     recovered from the last checkpoint plus the journal written after it; every
+     command that can change it is journaled, and its result is written only
+     once the journal is synced. Syncs are shared by groups of commands and a
+     checkpoint is taken every few thousand of them. With a null journalDir the
+     run is in memory only, as with run(inputPath, outputPath).
+     */
+    public static void run(final String inputPath, final String outputPath,
+                           final String journalDir) {
+        ObjectMapper mapper = Serialization.mapper();
+        File outputFile = new File(outputPath);
+        outputFile.getParentFile().mkdirs();
 
-            File usersFile = new File(INPUT_USERS_FIELD);
-            if (usersFile.exists()) {
-                List<User> users = mapper.readValue(usersFile,
-                        new TypeReference<List<User>>() { });
-                Database.getInstance().setUsers(users);
+        try (ResultSink writer = openSink(mapper, outputFile)) {
+            try {
+                if (journalDir == null) {
+                    runCommands(mapper, inputPath, writer, null, null);
+                } else {
+                    File dir = new File(journalDir);
+                    dir.mkdirs();
+                    try (CommandJournal journal = new CommandJournal(mapper, dir,
+                            GROUP_COMMIT_SIZE)) {
+                        runCommands(mapper, inputPath, writer, journal,
+                                new File(dir, CHECKPOINT_FILE));
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        } catch (IOException e) {
+            System.out.println("error writing to output file: " + e.getMessage());
+        }
+    }
 
-            JsonNode commandsNode = mapper.readTree(new File(inputPath));
+    private static void runCommands(final ObjectMapper mapper, final String inputPath,
+                                    final ResultSink writer, final CommandJournal journal,
+                                    final File checkpointFile) throws IOException {
+        Database db = loadDatabase(mapper);
+        if (journal != null) {
+            recover(db, journal, checkpointFile);
+        }
+        List<ObjectNode> unsynced = new ArrayList<>();
+        ReadOnlyBatch batch = new ReadOnlyBatch();
+        int sinceCheckpoint = 0;
 
-            if (commandsNode.isArray()) {
-                for (JsonNode commandNode : commandsNode) {
-                    if (!commandNode.has("command")) {
-                        continue;
-                    }
-                    String commandName = commandNode.get("command").asText();
+        try (CommandSource reader = openSource(mapper, new File(inputPath))) {
+            for (JsonNode commandNode = reader.next(); commandNode != null;
+                 commandNode = reader.next()) {
+                if (!commandNode.has("command")) {
+                    continue;
+                }
+                String commandName = commandNode.get("command").asText();
 
-                    if ("lostInvestors".equals(commandName)) {
-                        break;
-                    }
+                if ("lostInvestors".equals(commandName)) {
+                    break;
+                }
+
+                ICommand command = CommandFactory.createCommand(commandName, commandNode);
+                if (command == null) {
+                    continue;
+                }
 
-                    ICommand command = CommandFactory.createCommand(commandName, commandNode);
-
-                    if (command != null) {
-                        ObjectNode result = command.execute();
-
-                        if (result != null) {
-                            boolean isError = result.has("error")
-                                    || (result.has("status")
-                                    && "error".equals(result.get("status").asText()));
-                            boolean isView = commandName.startsWith("view");
-                            boolean isSearch = "search".equals(commandName);
-                            boolean isImpact = "generateCustomerImpactReport".equals(commandName);
-                            boolean isRisk = "generateTicketRiskReport".equals(commandName);
-                            boolean isEff = "generateResolutionEfficiencyReport".equals(commandName);
-                            boolean isStability = "appStabilityReport".equals(commandName);
-                            boolean isPerf = "generatePerformanceReport".equals(commandName);
-
-                            if (isError || isView || isSearch || isImpact
-                                    || isRisk || isEff || isStability || isPerf) {
-                                outputs.add(result);
-                            }
-                        }
+                if (!CommandFactory.isMutating(commandName)) {
+                    batch.add(commandName, command);
+                    if (batch.isFull()) {
+                        runBatch(db, batch, journal, unsynced, writer);
                     }
+                    continue;
+                }
+                runBatch(db, batch, journal, unsynced, writer);
+
+                if (journal != null) {
+                    pinClock(commandName, commandNode);
+                }
+                // journaled only once it ran: a command that throws ends the run, and
+                // the journal is closed without syncing, so neither it nor anything
+                // after the last sync is replayed and its half-applied effects go
+                // with this database. Journaling first would make such a command fail
+                // again on every recovery.
+                ObjectNode result = command.execute(db);
+                if (journal != null) {
+                    journal.append(commandNode);
+                    sinceCheckpoint++;
+                }
+                emit(commandName, result, journal, unsynced, writer);
+
+                if (journal != null && journal.isGroupFull()) {
+                    commit(journal, unsynced, writer);
+                }
+                if (sinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                    commit(journal, unsynced, writer);
+                    checkpoint(db, journal, checkpointFile);
+                    sinceCheckpoint = 0;
                 }
             }
+        }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+        runBatch(db, batch, journal, unsynced, writer);
+        if (journal != null) {
+            commit(journal, unsynced, writer);
+        }
+    }
+
+    private static CommandSource openSource(final ObjectMapper mapper, final File file)
+            throws IOException {
+        CommandReader reader = new CommandReader(mapper, file);
+        return PIPELINED ? new PrefetchingReader(reader, PIPELINE_CAPACITY) : reader;
+    }
+
+    private static ResultSink openSink(final ObjectMapper mapper, final File file)
+            throws IOException {
+        ResultWriter writer = new ResultWriter(mapper, file);
+        return PIPELINED ? new AsyncResultWriter(writer, PIPELINE_CAPACITY) : writer;
+    }
+
+    /**
+     Creates a database holding the users of the input users file, if any.
+     */
+    static Database loadDatabase(final ObjectMapper mapper) throws IOException {
+        Database db = new Database();
+        File usersFile = new File(INPUT_USERS_FIELD);
+        if (usersFile.exists()) {
+            List<User> users = mapper.readValue(usersFile,
+                    new TypeReference<List<User>>() { });
+            db.setUsers(users);
         }
+        return db;
+    }
 
-        try {
-            File outputFile = new File(outputPath);
-            outputFile.getParentFile().mkdirs();
-            WRITER.withDefaultPrettyPrinter().writeValue(outputFile, outputs);
+    /**
+     Serves commands on the given local address until the process is stopped,
+     see CommandServer.
+     */
+    public static void serve(final String address) {
+        ObjectMapper mapper = Serialization.mapper();
+        try (CommandServer server = new CommandServer(mapper, loadDatabase(mapper),
+                CommandServer.parseAddress(address))) {
+            System.out.println("serving on " + server.getAddress());
+            server.serve();
         } catch (IOException e) {
-            System.out.println("error writing to output file: " + e.getMessage());
+            System.out.println("error serving commands: " + e.getMessage());
+        }
+    }
+
+    /**
+     Runs the read-only commands collected so far, in parallel, and emits their
+     results in input order.
+     */
+    private static void runBatch(final Database db, final ReadOnlyBatch batch,
+                                 final CommandJournal journal, final List<ObjectNode> unsynced,
+                                 final ResultSink writer) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ObjectNode> results = batch.execute(db);
+        for (int i = 0; i < results.size(); i++) {
+            emit(batch.getNames().get(i), results.get(i), journal, unsynced, writer);
+        }
+        batch.clear();
+    }
+
+    /**
+     Writes a result that belongs in the output, or holds it back while the
+     journal has records not yet synced.
+     */
+    private static void emit(final String commandName, final ObjectNode result,
+                             final CommandJournal journal, final List<ObjectNode> unsynced,
+                             final ResultSink writer) throws IOException {
+        if (result == null || !isEmitted(commandName, result)) {
+            return;
+        }
+        if (journal != null && journal.hasPending()) {
+            unsynced.add(result);
+        } else {
+            writer.write(result);
+        }
+    }
+
+    /**
+     Loads the last checkpoint, if any, and re-executes the journaled commands
+     that came after it. Their results were already written by the run that
+     journaled them.
+     */
+    private static void recover(final Database db, final CommandJournal journal,
+                                final File checkpointFile) throws IOException {
+        long segment = 0;
+        if (checkpointFile.exists()) {
+            segment = Checkpoint.read(checkpointFile, db);
+        }
+        journal.replay(segment, commandNode -> {
+            ICommand command = CommandFactory.createCommand(
+                    commandNode.get("command").asText(), commandNode);
+            if (command != null) {
+                command.execute(db);
+            }
+        });
+    }
+
+    /**
+     Starts a new journal segment and writes a checkpoint referring to it, so
+     recovery loads the checkpoint and replays only that segment and the later
+     ones. The segments before it are deleted once the checkpoint is in place;
+     a crash in between only leaves them behind until the next checkpoint.
+     */
+    private static void checkpoint(final Database db, final CommandJournal journal,
+                                   final File checkpointFile) throws IOException {
+        long segment = journal.startSegment();
+        Checkpoint.write(checkpointFile, db, segment);
+        journal.deleteSegmentsBefore(segment);
+    }
+
+    /**
+     Makes the journaled commands durable, then releases the results held back
+     until then, in order.
+     */
+    private static void commit(final CommandJournal journal, final List<ObjectNode> unsynced,
+                               final ResultSink writer) throws IOException {
+        journal.sync();
+        for (ObjectNode result : unsynced) {
+            writer.write(result);
+        }
+        unsynced.clear();
+    }
+
+    /**
+     reportTicket falls back to today's date when it has no timestamp. The date
+     is fixed in the command before it runs, so a replay sees the same one.
+     */
+    private static void pinClock(final String commandName, final JsonNode commandNode) {
+        if ("reportTicket".equals(commandName) && !commandNode.has("timestamp")
+                && commandNode instanceof ObjectNode) {
+            ((ObjectNode) commandNode).put("timestamp", LocalDate.now().toString());
         }
     }
 
     /**
-     Main entry point of the application.
+     Checks if the result of the command belongs in the output.
+     */
+    static boolean isEmitted(final String commandName, final ObjectNode result) {
+        boolean isError = result.has("error")
+                || (result.has("status")
+                && "error".equals(result.get("status").asText()));
+        boolean isView = commandName.startsWith("view");
+        boolean isSearch = "search".equals(commandName);
+        boolean isImpact = "generateCustomerImpactReport".equals(commandName);
+        boolean isRisk = "generateTicketRiskReport".equals(commandName);
+        boolean isEff = "generateResolutionEfficiencyReport".equals(commandName);
+        boolean isStability = "appStabilityReport".equals(commandName);
+        boolean isPerf = "generatePerformanceReport".equals(commandName);
+
+        return isError || isView || isSearch || isImpact
+                || isRisk || isEff || isStability || isPerf;
+    }
+
+    /**
+     Main entry point of the application: input file, output file and, optionally,
+     the directory of the command journal. With SERVE_FLAG and an address instead,
+     the application runs as a server.
      */
     public static void main(final String[] args) {
         if (args.length < 2) {
             return;
         }
-        run(args[0], args[1]);
+        if (SERVE_FLAG.equals(args[0])) {
+            serve(args[1]);
+            return;
+        }
+        run(args[0], args[1], args.length > 2 ? args[2] : null);
     }
 }
@@ -0,0 +1,212 @@
+package main;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cod.command.CommandFactory;
+import cod.command.ICommand;
+import cod.database.Database;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ Keeps one database in memory and runs commands sent over a local socket, a
+ loopback TCP port or a Unix domain socket. Every connection is served by its
+ own virtual thread and speaks newline-delimited JSON: one command object per
+ line in, one line out per command. The answer is the result App.run would
+ have written for the command, or null when it would have written nothing.
+
+ Read-only commands run concurrently; a command that can change the database
+ runs alone, so every client sees the same results as a sequential run of the
+ commands in the order the server executed them.
+
+ A command that throws is answered with an error object and the connection
+ goes on. Commands parse their timestamp and ticket type before they change
+ anything, so bad input of that kind leaves the database as it was. A command
+ failing later keeps the changes it made before the failure, for every client:
+ undoing them would take a copy of the database for every mutating command.
+ */
+public final class CommandServer implements Closeable {
+    private static final String NO_RESULT = "null";
+
+    private final ObjectMapper mapper;
+    private final Database db;
+    private final ServerSocketChannel channel;
+    private final SocketAddress address;
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    /**
+     Binds the server to the given address.
+     param address a loopback InetSocketAddress (port 0 picks a free port) or a
+     UnixDomainSocketAddress
+     */
+    public CommandServer(final ObjectMapper mapper, final Database db,
+                         final SocketAddress address) throws IOException {
+        this.mapper = mapper;
+        this.db = db;
+        if (address instanceof UnixDomainSocketAddress) {
+            this.channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.channel = ServerSocketChannel.open();
+        }
+        channel.bind(address);
+        this.address = channel.getLocalAddress();
+    }
+
+    /**
+     Parses a server address: a port number for a loopback TCP socket, anything
+     else for the path of a Unix domain socket.
+     */
+    public static SocketAddress parseAddress(final String spec) {
+        try {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(spec));
+        } catch (NumberFormatException e) {
+            return UnixDomainSocketAddress.of(spec);
+        }
+    }
+
+    /**
+     Gets the address the server is bound to, with the actual port if port 0
+     was requested.
+     */
+    public SocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     Accepts connections until the server is closed, serving each one on a new
+     virtual thread.
+     */
+    public void serve() throws IOException {
+        while (!closed) {
+            SocketChannel client;
+            try {
+                client = channel.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            clients.add(client);
+            Thread.ofVirtual().name("client-", 0).start(() -> handle(client));
+        }
+    }
+
+    private void handle(final SocketChannel client) {
+        try (client;
+             BufferedReader in = new BufferedReader(
+                     Channels.newReader(client, StandardCharsets.UTF_8));
+             Writer out = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                out.write(answer(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client went away, nothing left to answer
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private String answer(final String line) throws JsonProcessingException {
+        JsonNode commandNode;
+        try {
+            commandNode = mapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            ObjectNode error = mapper.createObjectNode();
+            error.put("error", "Invalid command: " + e.getOriginalMessage());
+            return mapper.writeValueAsString(error);
+        }
+        ObjectNode result = execute(commandNode);
+        return result == null ? NO_RESULT : mapper.writeValueAsString(result);
+    }
+
+    /**
+     Runs one command against the database.
+     return the result App.run would write for it, or null if it writes none
+     */
+    public ObjectNode execute(final JsonNode commandNode) {
+        if (commandNode == null || !commandNode.has("command")) {
+            return null;
+        }
+        String commandName = commandNode.get("command").asText();
+        ICommand command = CommandFactory.createCommand(commandName, commandNode);
+        if (command == null) {
+            return null;
+        }
+
+        Lock lock = CommandFactory.isMutating(commandName)
+                ? stateLock.writeLock() : stateLock.readLock();
+        ObjectNode result;
+        lock.lock();
+        try {
+            result = command.execute(db);
+        } catch (RuntimeException e) {
+            return failure(commandName, commandNode, e);
+        } finally {
+            lock.unlock();
+        }
+        if (result == null || !App.isEmitted(commandName, result)) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     Builds the answer to a command that threw, shaped like the errors commands
+     report themselves.
+     */
+    private ObjectNode failure(final String commandName, final JsonNode commandNode,
+                               final RuntimeException e) {
+        ObjectNode error = mapper.createObjectNode();
+        error.put("command", commandName);
+        if (commandNode.has("username")) {
+            error.put("username", commandNode.get("username").asText());
+        }
+        if (commandNode.has("timestamp")) {
+            error.put("timestamp", commandNode.get("timestamp").asText());
+        }
+        String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        error.put("error", "Command failed: " + message);
+        return error;
+    }
+
+    /**
+     Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+    }
+}
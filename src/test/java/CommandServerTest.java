@@ -0,0 +1,128 @@
+import cod.io.Serialization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import main.App;
+import main.CommandServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that the server answers every command with the result App.run writes
+ for it, and with null for the commands App.run writes nothing for.
+ */
+public class CommandServerTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"input/in_12_test_notifications.json",
+            "input/in_17_test_performance.json"})
+    public void answersMatchTheBatchRun(final String inputPath, @TempDir final Path tmp)
+            throws Exception {
+        File output = tmp.resolve("out.json").toFile();
+        App.run(inputPath, output.getPath());
+        List<JsonNode> expected = new ArrayList<>();
+        MAPPER.readTree(output).forEach(expected::add);
+
+        List<JsonNode> answers = new ArrayList<>();
+        try (CommandServer server = startServer();
+             Socket socket = connect(server)) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            for (JsonNode command : MAPPER.readTree(new File(inputPath))) {
+                if ("lostInvestors".equals(command.path("command").asText())) {
+                    break;
+                }
+                out.write(MAPPER.writeValueAsString(command));
+                out.write('\n');
+                out.flush();
+                JsonNode answer = MAPPER.readTree(in.readLine());
+                if (!answer.isNull()) {
+                    answers.add(answer);
+                }
+            }
+        }
+
+        assertThat(answers).isEqualTo(expected);
+    }
+
+    @Test
+    public void malformedLinesGetAnError() throws Exception {
+        try (CommandServer server = startServer();
+             Socket socket = connect(server)) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write("{not json\n{\"command\":\"noSuchCommand\"}\n");
+            out.flush();
+
+            assertThat(MAPPER.readTree(in.readLine()).has("error")).isTrue();
+            assertThat(in.readLine()).isEqualTo("null");
+        }
+    }
+
+    @Test
+    public void failingCommandsGetAnErrorAndTheConnectionGoesOn() throws Exception {
+        String report = "{\"command\":\"reportTicket\",\"username\":\"lilith_reporter\","
+                + "\"timestamp\":\"%s\",\"params\":{\"type\":\"%s\",\"title\":\"t\","
+                + "\"businessPriority\":\"LOW\",\"reportedBy\":\"lilith_reporter\","
+                + "\"expertiseArea\":\"BACKEND\"}}\n";
+        try (CommandServer server = startServer();
+             Socket socket = connect(server)) {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(),
+                    StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.UTF_8));
+            out.write(String.format(report, "2025-10-01", "NO_SUCH_TYPE"));
+            out.write(String.format(report, "yesterday", "BUG"));
+            // accepted only if the failed first report did not start the testing phase
+            out.write(String.format(report, "2025-10-20", "BUG"));
+            out.write("{\"command\":\"viewTickets\",\"username\":\"lilith_reporter\","
+                    + "\"timestamp\":\"2025-10-20\"}\n");
+            out.flush();
+
+            JsonNode badType = MAPPER.readTree(in.readLine());
+            assertThat(badType.get("command").asText()).isEqualTo("reportTicket");
+            assertThat(badType.get("error").asText()).startsWith("Command failed: ");
+            assertThat(MAPPER.readTree(in.readLine()).has("error")).isTrue();
+            assertThat(in.readLine()).isEqualTo("null");
+            assertThat(MAPPER.readTree(in.readLine()).get("tickets")).hasSize(1);
+        }
+    }
+
+    private static CommandServer startServer() throws Exception {
+        CommandServer server = new CommandServer(MAPPER, TestFixtures.databaseWithUsers(),
+                CommandServer.parseAddress("0"));
+        Thread.ofVirtual().start(() -> {
+            try {
+                server.serve();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return server;
+    }
+
+    private static Socket connect(final CommandServer server) throws Exception {
+        InetSocketAddress address = (InetSocketAddress) server.getAddress();
+        return new Socket(address.getAddress(), address.getPort());
+    }
+}
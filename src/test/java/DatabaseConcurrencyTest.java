@@ -0,0 +1,199 @@
+import cod.command.CommandFactory;
+import cod.database.Database;
+import cod.model.Bug;
+import cod.model.Developer;
+import cod.model.Milestone;
+import cod.model.Ticket;
+import cod.model.User;
+import cod.model.enums.Seniority;
+import cod.model.enums.TicketType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Stress tests for a Database shared by concurrent writers: ids must stay unique
+ and dense, a ticket must never end up in two milestones, and commands changing
+ different tickets must leave the indexes consistent with the tickets.
+ */
+public class DatabaseConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int TICKETS_PER_THREAD = 250;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void concurrentReportsGetUniqueDenseIds() throws Exception {
+        Database db = new Database();
+        runConcurrently(worker -> {
+            for (int i = 0; i < TICKETS_PER_THREAD; i++) {
+                db.addTicket(newTicket("t" + worker + "-" + i));
+            }
+        });
+
+        int total = THREADS * TICKETS_PER_THREAD;
+        assertThat(db.getTicketIdCounter()).isEqualTo(total);
+        assertThat(db.getTickets()).hasSize(total);
+        BitSet seen = new BitSet();
+        for (int id = 0; id < total; id++) {
+            Ticket t = db.getTicket(id);
+            assertThat(t.getId()).isEqualTo(id);
+            seen.set(t.getId());
+        }
+        assertThat(seen.cardinality()).isEqualTo(total);
+        assertThat(db.findTickets("OPEN", null, null)).hasSize(total);
+    }
+
+    @Test
+    public void overlappingMilestonesNeverShareATicket() throws Exception {
+        Database db = new Database();
+        int total = THREADS * TICKETS_PER_THREAD;
+        for (int i = 0; i < total; i++) {
+            db.addTicket(newTicket("t" + i));
+        }
+
+        // every worker tries to claim windows of tickets overlapping its neighbours'
+        int window = 10;
+        runConcurrently(worker -> {
+            for (int start = worker; start + window <= total; start += window) {
+                List<Integer> ids = new ArrayList<>();
+                for (int id = start; id < start + window; id++) {
+                    ids.add(id);
+                }
+                db.tryAddMilestone(newMilestone("m" + worker + "-" + start, ids, List.of()));
+            }
+        });
+
+        int[] owners = new int[total];
+        for (Milestone m : db.getMilestones()) {
+            for (Integer id : m.getTickets()) {
+                owners[id]++;
+                assertThat(db.getMilestoneForTicket(id)).isSameAs(m);
+            }
+        }
+        for (int id = 0; id < total; id++) {
+            assertThat(owners[id]).as("milestones owning ticket %d", id).isLessThanOrEqualTo(1);
+        }
+    }
+
+    @Test
+    public void commandsOnDifferentTicketsRunInParallel() throws Exception {
+        Database db = new Database();
+        List<User> users = new ArrayList<>();
+        List<String> devs = new ArrayList<>();
+        for (int worker = 0; worker < THREADS; worker++) {
+            Developer dev = new Developer();
+            dev.setUsername("dev" + worker);
+            dev.setRole("DEVELOPER");
+            dev.setExpertiseArea("BACKEND");
+            dev.setSeniority(Seniority.SENIOR);
+            users.add(dev);
+            devs.add(dev.getUsername());
+        }
+        db.setUsers(users);
+
+        int total = THREADS * TICKETS_PER_THREAD;
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            db.addTicket(newTicket("t" + i));
+            ids.add(i);
+        }
+        db.addMilestone(newMilestone("release", ids, devs));
+        db.setTestingPhase(false);
+
+        runConcurrently(worker -> {
+            String username = "dev" + worker;
+            for (int id = worker; id < total; id += THREADS) {
+                assertThat(run(db, "assignTicket", username, id).has("error")).isFalse();
+                run(db, "changeStatus", username, id);
+                run(db, "changeStatus", username, id);
+            }
+        });
+
+        for (int worker = 0; worker < THREADS; worker++) {
+            List<Ticket> assigned = db.getTicketsAssignedTo("dev" + worker);
+            assertThat(assigned).hasSize(TICKETS_PER_THREAD);
+            for (Ticket t : assigned) {
+                assertThat(t.getId() % THREADS).isEqualTo(worker);
+                assertThat(t.getHistory()).hasSize(4);
+            }
+        }
+        assertThat(db.findTickets("CLOSED", null, null)).hasSize(total);
+        assertThat(db.findTickets("OPEN", null, null)).isEmpty();
+        assertThat(db.getAssignedTickets()).hasSize(total);
+
+        Milestone release = db.getMilestones().get(0);
+        assertThat(release.getOpenTickets()).isEmpty();
+        assertThat(release.getStatus()).isEqualTo("COMPLETED");
+    }
+
+    private interface Worker {
+        void run(int worker) throws Exception;
+    }
+
+    private static void runConcurrently(final Worker body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int worker = 0; worker < THREADS; worker++) {
+            int id = worker;
+            futures.add(pool.submit(() -> {
+                start.await();
+                body.run(id);
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> f : futures) {
+                f.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ObjectNode run(final Database db, final String command,
+                                  final String username, final int ticketId) {
+        ObjectNode args = MAPPER.createObjectNode();
+        args.put("command", command);
+        args.put("username", username);
+        args.put("timestamp", "2025-01-10");
+        args.put("ticketID", ticketId);
+        return CommandFactory.createCommand(command, args).execute(db);
+    }
+
+    private static Ticket newTicket(final String title) {
+        Ticket t = new Bug();
+        t.setType(TicketType.BUG);
+        t.setTitle(title);
+        t.setBusinessPriority("LOW");
+        t.setExpertiseArea("BACKEND");
+        t.setStatus("OPEN");
+        t.setReportedBy("reporter");
+        t.setCreatedAt("2025-01-01");
+        return t;
+    }
+
+    private static Milestone newMilestone(final String name, final List<Integer> tickets,
+                                          final List<String> devs) {
+        Milestone m = new Milestone();
+        m.setName(name);
+        m.setCreatedBy("manager");
+        m.setCreatedAt("2025-01-01");
+        m.setDueDate("2025-06-01");
+        m.setTickets(new ArrayList<>(tickets));
+        m.setAssignedDevs(new ArrayList<>(devs));
+        return m;
+    }
+}
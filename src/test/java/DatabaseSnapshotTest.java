@@ -0,0 +1,295 @@
+import cod.database.Database;
+import cod.io.Serialization;
+import cod.model.Bug;
+import cod.model.Comment;
+import cod.model.Developer;
+import cod.model.FeatureRequest;
+import cod.model.Manager;
+import cod.model.Milestone;
+import cod.model.Reporter;
+import cod.model.Ticket;
+import cod.model.TicketAction;
+import cod.model.User;
+import cod.model.enums.Seniority;
+import cod.model.enums.TicketType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ Checks that a snapshot brings back every stored field and rebuilds the
+ indexes, so commands run the same on a reloaded database, and that a snapshot
+ which cannot be read leaves the database as it was.
+ */
+public class DatabaseSnapshotTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+
+    @Test
+    public void everyFieldSurvivesARoundTrip() throws Exception {
+        Database db = handBuiltDatabase();
+        Database loaded = new Database();
+        loaded.readSnapshot(input(snapshot(db)));
+
+        assertThat(loaded.getUsers()).usingRecursiveComparison()
+                .isEqualTo(db.getUsers());
+        assertThat(loaded.getTickets()).hasSize(3).usingRecursiveComparison()
+                .ignoringFieldsMatchingRegexes(".*database")
+                .isEqualTo(db.getTickets());
+        assertThat(loaded.getMilestones()).usingRecursiveComparison()
+                .ignoringFieldsMatchingRegexes(".*database")
+                .isEqualTo(db.getMilestones());
+        for (int id = 0; id < db.getTickets().size(); id++) {
+            assertThat(loaded.getTicket(id)).isExactlyInstanceOf(db.getTicket(id).getClass());
+        }
+        assertThat(loaded.isTestingPhase()).isFalse();
+        assertThat(loaded.getTestingPhaseStartDay()).isEqualTo(db.getTestingPhaseStartDay());
+        assertThat(loaded.getTicketIdCounter()).isEqualTo(3);
+        assertThat(loaded.getUser("dev").getNotifications())
+                .containsExactly("first", "second");
+        assertThat(snapshot(loaded)).isEqualTo(snapshot(db));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"input/in_12_test_notifications.json",
+            "input/in_18_test_complex.json", "input/in_19_test_complex_edge_case.json"})
+    public void reloadedDatabaseRunsTheRestOfTheInputTheSame(final String inputPath)
+            throws Exception {
+        List<JsonNode> commands = TestFixtures.readCommands(inputPath);
+        int half = commands.size() / 2;
+
+        Database db = TestFixtures.databaseWithUsers();
+        for (JsonNode command : commands.subList(0, half)) {
+            TestFixtures.create(command).execute(db);
+        }
+        Database loaded = new Database();
+        loaded.readSnapshot(input(snapshot(db)));
+
+        assertThat(snapshot(loaded)).isEqualTo(snapshot(db));
+        assertIndexesMatch(loaded, db);
+
+        List<ObjectNode> expected = new ArrayList<>();
+        List<ObjectNode> actual = new ArrayList<>();
+        for (JsonNode command : commands.subList(half, commands.size())) {
+            expected.add(TestFixtures.create(command).execute(db));
+            actual.add(TestFixtures.create(command).execute(loaded));
+        }
+        // results may hold POJO views, so they are compared as written
+        assertThat(MAPPER.writeValueAsString(actual))
+                .isEqualTo(MAPPER.writeValueAsString(expected));
+    }
+
+    @Test
+    public void unreadableSnapshotLeavesTheDatabaseUnchanged() throws Exception {
+        byte[] valid = snapshot(handBuiltDatabase());
+        Database db = TestFixtures.databaseWithUsers();
+        TestFixtures.create(MAPPER.readTree("{\"command\": \"reportTicket\", \"username\": "
+                + "\"lilith_reporter\", \"timestamp\": \"2025-10-01\", \"params\": "
+                + "{\"type\": \"BUG\", \"title\": \"Crash\", \"businessPriority\": \"LOW\", "
+                + "\"reportedBy\": \"lilith_reporter\", \"expertiseArea\": \"BACKEND\", "
+                + "\"severity\": \"MINOR\"}}")).execute(db);
+        byte[] before = snapshot(db);
+
+        byte[] badVersion = valid.clone();
+        ByteBuffer.wrap(badVersion).putInt(Integer.BYTES, 2);
+        assertThatThrownBy(() -> db.readSnapshot(input(badVersion)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("version 2");
+
+        byte[] badMagic = valid.clone();
+        badMagic[0] ^= 1;
+        assertThatThrownBy(() -> db.readSnapshot(input(badMagic)))
+                .isInstanceOf(IOException.class);
+
+        for (int length = 0; length < valid.length; length++) {
+            byte[] truncated = Arrays.copyOf(valid, length);
+            assertThatThrownBy(() -> db.readSnapshot(input(truncated)))
+                    .isInstanceOf(IOException.class);
+        }
+
+        assertThat(snapshot(db)).isEqualTo(before);
+        assertThat(db.getTickets()).hasSize(1);
+        assertThat(db.getTicketsReportedBy("lilith_reporter")).hasSize(1);
+    }
+
+    /**
+     Checks every index of the reloaded database against a scan of its own
+     contents, and the derived milestone state against the original database.
+     */
+    private static void assertIndexesMatch(final Database actual, final Database expected) {
+        assertThat(ids(actual.getAssignedTickets()))
+                .isEqualTo(idsWhere(actual, t -> !t.getAssignedTo().isEmpty()));
+        for (User u : expected.getUsers()) {
+            String name = u.getUsername();
+            assertThat(actual.getUser(name)).isNotNull();
+            assertThat(ids(actual.getTicketsAssignedTo(name)))
+                    .isEqualTo(idsWhere(actual, t -> name.equals(t.getAssignedTo())));
+            assertThat(ids(actual.getTicketsReportedBy(name)))
+                    .isEqualTo(idsWhere(actual, t -> name.equals(t.getReportedBy())));
+            assertThat(ids(actual.getTicketsTouchedBy(name)))
+                    .isEqualTo(idsWhere(actual, t -> name.equals(t.getAssignedTo())
+                            || t.getHistory().stream().anyMatch(a -> name.equals(a.getBy()))));
+            assertThat(names(actual.getMilestonesForDeveloper(name)))
+                    .isEqualTo(namesWhere(actual, m -> m.getAssignedDevs().contains(name)));
+            assertThat(names(actual.getMilestonesCreatedBy(name)))
+                    .isEqualTo(namesWhere(actual, m -> name.equals(m.getCreatedBy())));
+        }
+        for (String role : List.of("REPORTER", "DEVELOPER", "MANAGER")) {
+            assertThat(actual.getUsersByRole(role)).extracting(User::getUsername)
+                    .isEqualTo(actual.getUsers().stream().filter(u -> role.equals(u.getRole()))
+                            .map(User::getUsername).toList());
+        }
+        for (Ticket t : actual.getTickets()) {
+            Milestone owner = actual.getMilestoneForTicket(t.getId());
+            assertThat(owner == null ? List.of() : List.of(owner.getName()))
+                    .isEqualTo(namesWhere(actual, m -> m.getTickets().contains(t.getId())));
+        }
+        for (Milestone m : expected.getMilestones()) {
+            Milestone loaded = actual.getMilestones().get(expected.getMilestones().indexOf(m));
+            assertThat(loaded.getIsBlocked()).isEqualTo(m.getIsBlocked());
+            assertThat(loaded.getRepartition()).usingRecursiveComparison()
+                    .isEqualTo(m.getRepartition());
+        }
+    }
+
+    private static Database handBuiltDatabase() {
+        Reporter reporter = new Reporter();
+        reporter.setUsername("reporter");
+        reporter.setEmail("reporter@example.com");
+        reporter.setRole("REPORTER");
+        Developer dev = new Developer();
+        dev.setUsername("dev");
+        dev.setEmail("dev@example.com");
+        dev.setRole("DEVELOPER");
+        dev.setHireDate("2020-03-01");
+        dev.setExpertiseArea("BACKEND");
+        dev.setSeniority(Seniority.SENIOR);
+        dev.setPerformanceScore(87.5);
+        dev.addNotifications(List.of("first", "second"));
+        Manager manager = new Manager();
+        manager.setUsername("manager");
+        manager.setEmail("manager@example.com");
+        manager.setRole("MANAGER");
+        manager.setHireDate("2018-01-15");
+        manager.setSubordinates(List.of("dev"));
+
+        Database db = new Database();
+        db.setUsers(new ArrayList<>(List.of(reporter, dev, manager)));
+
+        Bug bug = new Bug();
+        fillCommon(bug, TicketType.BUG, "Crash on login");
+        bug.setSeverity("SEVERE");
+        bug.setExpectedBehavior("logs in");
+        bug.setActualBehavior("crashes");
+        bug.setFrequency("ALWAYS");
+        bug.setEnvironment("prod");
+        bug.setErrorCode(500);
+        bug.setAssignedTo("dev");
+        bug.setAssignedAt("2025-01-03");
+        bug.addComment(new Comment("dev", "looking into it", "2025-01-04"));
+        bug.addComment(new Comment("reporter", "ünïcode ✓", "2025-01-04"));
+        bug.addHistory(action("ASSIGNED", "dev", "2025-01-03", null, null));
+        bug.addHistory(action("STATUS_CHANGED", "dev", "2025-01-03", "OPEN", "IN_PROGRESS"));
+        bug.setStatus("IN_PROGRESS");
+        db.addTicket(bug);
+
+        FeatureRequest feature = new FeatureRequest();
+        fillCommon(feature, TicketType.FEATURE_REQUEST, "Dark mode");
+        feature.setBusinessValue("M");
+        feature.setCustomerDemand("HIGH");
+        feature.setSolvedAt("2025-01-09");
+        feature.setStatus("CLOSED");
+        db.addTicket(feature);
+
+        Ticket feedback = new Ticket();
+        fillCommon(feedback, TicketType.UI_FEEDBACK, "Button too small");
+        feedback.setUiElementId("submit");
+        feedback.setUsabilityScore(3);
+        feedback.setSuggestedFix("make it bigger");
+        feedback.setComments(null);
+        db.addTicket(feedback);
+
+        Milestone milestone = new Milestone();
+        milestone.setName("v1");
+        milestone.setBlockingFor(List.of());
+        milestone.setDueDate("2025-02-01");
+        milestone.setCreatedAt("2025-01-05");
+        milestone.setTickets(List.of(0, 1));
+        milestone.setAssignedDevs(List.of("dev"));
+        milestone.setCreatedBy("manager");
+        milestone.restoreTimeFields(3, 0);
+        milestone.setNotifiedDueTomorrow(true);
+        db.addMilestone(milestone);
+
+        db.setTestingPhase(false);
+        db.setTestingPhaseStartDay(20089);
+        return db;
+    }
+
+    private static void fillCommon(final Ticket t, final TicketType type, final String title) {
+        t.setType(type);
+        t.setTitle(title);
+        t.setBusinessPriority("HIGH");
+        t.setComputedPriority("CRITICAL");
+        t.setExpertiseArea("FRONTEND");
+        t.setDescription(null);
+        t.setReportedBy("reporter");
+        t.setCreatedAt("2025-01-02");
+    }
+
+    private static TicketAction action(final String name, final String by, final String timestamp,
+                                       final String from, final String to) {
+        TicketAction a = new TicketAction();
+        a.setAction(name);
+        a.setBy(by);
+        a.setTimestamp(timestamp);
+        a.setFrom(from);
+        a.setTo(to);
+        return a;
+    }
+
+    private static byte[] snapshot(final Database db) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            db.writeSnapshot(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream input(final byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static List<Integer> ids(final List<Ticket> tickets) {
+        return tickets.stream().map(Ticket::getId).toList();
+    }
+
+    private static List<String> names(final List<Milestone> milestones) {
+        return milestones.stream().map(Milestone::getName).toList();
+    }
+
+    private static List<Integer> idsWhere(final Database db, final Predicate<Ticket> filter) {
+        return ids(db.getTickets().stream().filter(filter).toList());
+    }
+
+    private static List<String> namesWhere(final Database db,
+                                           final Predicate<Milestone> filter) {
+        return names(db.getMilestones().stream().filter(filter).toList());
+    }
+}
@@ -0,0 +1,98 @@
+import cod.command.CommandFactory;
+import cod.database.Database;
+import cod.model.Bug;
+import cod.model.Reporter;
+import cod.model.Ticket;
+import cod.model.TicketAction;
+import cod.utils.DateUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ Checks the epoch-day conversions against java.time, through cache hits and
+ evictions, and that date fields read back exactly the string they were set to.
+ */
+public class DateUtilsTest {
+
+    @Test
+    public void conversionsMatchJavaTime() {
+        LocalDate start = LocalDate.of(2024, 12, 1);
+        // more distinct dates than cache slots, twice, so both hits and evictions are seen
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 3000; i++) {
+                LocalDate date = start.plusDays(i);
+                int day = DateUtils.toEpochDay(date.toString());
+                assertThat(day).isEqualTo(date.toEpochDay());
+                assertThat(DateUtils.toIsoDate(day)).isEqualTo(date.toString());
+            }
+        }
+        assertThat(DateUtils.daysBetween(DateUtils.parseEpochDay("2025-01-30"),
+                DateUtils.parseEpochDay("2025-03-01"))).isEqualTo(31);
+    }
+
+    @Test
+    public void nonDatesHaveNoEpochDay() {
+        assertThat(DateUtils.toEpochDay(null)).isEqualTo(DateUtils.NO_DATE);
+        assertThat(DateUtils.toEpochDay("")).isEqualTo(DateUtils.NO_DATE);
+        assertThat(DateUtils.toEpochDay("2025-02-30")).isEqualTo(DateUtils.NO_DATE);
+        assertThat(DateUtils.toEpochDay("yesterday")).isEqualTo(DateUtils.NO_DATE);
+        assertThat(DateUtils.toIsoDate(DateUtils.NO_DATE)).isNull();
+    }
+
+    @Test
+    public void strictParsingRejectsNonDates() {
+        assertThat(DateUtils.parseEpochDay("2025-01-10"))
+                .isEqualTo(LocalDate.of(2025, 1, 10).toEpochDay());
+        assertThatThrownBy(() -> DateUtils.parseEpochDay(""))
+                .isInstanceOf(DateTimeParseException.class);
+        assertThatThrownBy(() -> DateUtils.parseEpochDay("2025-13-01"))
+                .isInstanceOf(DateTimeParseException.class);
+        assertThatThrownBy(() -> DateUtils.parseEpochDay(null))
+                .isInstanceOf(DateTimeParseException.class);
+    }
+
+    @Test
+    public void badCommandTimestampsFailInsteadOfClosingTheTestingPhase() {
+        Database db = new Database();
+        Reporter reporter = new Reporter();
+        reporter.setUsername("reporter");
+        reporter.setRole("REPORTER");
+        db.setUsers(new ArrayList<>(List.of(reporter)));
+
+        ObjectNode args = new ObjectMapper().createObjectNode();
+        args.put("command", "reportTicket");
+        args.put("username", "reporter");
+        args.put("timestamp", "not-a-date");
+        assertThatThrownBy(() -> CommandFactory.createCommand("reportTicket", args).execute(db))
+                .isInstanceOf(DateTimeParseException.class);
+        assertThat(db.isTestingPhase()).isTrue();
+        assertThat(db.getTestingPhaseStartDay()).isEqualTo(DateUtils.NO_DATE);
+    }
+
+    @Test
+    public void dateFieldsReadBackWhatWasSet() {
+        Ticket t = new Bug();
+        assertThat(t.getSolvedAt()).isEmpty();
+        t.setSolvedAt("2025-01-10");
+        assertThat(t.getSolvedAt()).isEqualTo("2025-01-10");
+        assertThat(t.getSolvedDay()).isEqualTo(LocalDate.of(2025, 1, 10).toEpochDay());
+        t.setSolvedAt("");
+        assertThat(t.getSolvedAt()).isEmpty();
+        assertThat(t.getSolvedDay()).isEqualTo(DateUtils.NO_DATE);
+
+        TicketAction action = new TicketAction();
+        assertThat(action.getTimestamp()).isNull();
+        action.setTimestamp("soon");
+        assertThat(action.getTimestamp()).isEqualTo("soon");
+        assertThat(action.getTimestampDay()).isEqualTo(DateUtils.NO_DATE);
+    }
+}
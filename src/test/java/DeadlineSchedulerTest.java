@@ -0,0 +1,38 @@
+import cod.database.DeadlineScheduler;
+import cod.database.MilestoneGraph;
+import cod.model.Milestone;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that reminders fire on the day before the due date and that those of
+ days the clock jumped over are dropped instead of kept forever.
+ */
+public class DeadlineSchedulerTest {
+
+    @Test
+    public void remindersOfPassedDaysAreDropped() {
+        DeadlineScheduler scheduler = new DeadlineScheduler(new MilestoneGraph());
+        Milestone skipped = milestone("skipped", "2025-03-10");
+        Milestone onTime = milestone("onTime", "2025-03-12");
+        scheduler.schedule(skipped);
+        scheduler.schedule(onTime);
+
+        long day = LocalDate.of(2025, 3, 10).toEpochDay();
+        // the clock jumps over 2025-03-09, the reminder day of the first one
+        assertThat(scheduler.takeDue(day)).isEmpty();
+        // going back shows it was removed, not just missed
+        assertThat(scheduler.takeDue(day - 1)).isEmpty();
+        assertThat(scheduler.takeDue(day + 1)).containsExactly(onTime);
+    }
+
+    private static Milestone milestone(final String name, final String dueDate) {
+        Milestone m = new Milestone();
+        m.setName(name);
+        m.setDueDate(dueDate);
+        return m;
+    }
+}
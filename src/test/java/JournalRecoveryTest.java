@@ -0,0 +1,302 @@
+import cod.command.CommandFactory;
+import cod.database.Database;
+import cod.io.Checkpoint;
+import cod.io.CommandJournal;
+import cod.io.Serialization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import main.App;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ Checks that a run on a journal directory picks up the state the previous runs
+ left there, from the journal alone or from a checkpoint plus the journal
+ after it, that a torn or corrupt record at the end of the journal is dropped,
+ and that a run which dies releases only the results of synced commands.
+ */
+public class JournalRecoveryTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+    private static final String FIRST_SEGMENT = "journal-0.log";
+    private static final String CHECKPOINT_FILE = "checkpoint.bin";
+
+    @TempDir
+    private Path tmp;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"input/in_18_test_complex.json",
+            "input/in_19_test_complex_edge_case.json"})
+    public void runsAfterATornTailContinueWhereTheLastOneStopped(final String inputPath)
+            throws Exception {
+        List<JsonNode> commands = TestFixtures.readCommands(inputPath);
+        File dir = tmp.resolve("journal").toFile();
+        List<List<JsonNode>> parts = split(commands, 3);
+
+        ArrayNode output = MAPPER.createArrayNode();
+        for (List<JsonNode> part : parts) {
+            output.addAll(runPart(part, dir));
+            // as if the run had been killed while writing one more record
+            appendTornRecord(lastSegment(dir));
+        }
+
+        assertThat(output).isEqualTo(runInMemory(commands));
+        assertThat(snapshot(recover(dir))).isEqualTo(snapshot(runDirectly(commands)));
+    }
+
+    @Test
+    public void checkpointIsLoadedAndOnlyTheJournalAfterItIsReplayed() throws Exception {
+        List<JsonNode> commands =
+                TestFixtures.readCommands("input/in_19_test_complex_edge_case.json");
+        File dir = tmp.resolve("journal").toFile();
+        List<List<JsonNode>> parts = split(commands, 3);
+
+        ArrayNode output = MAPPER.createArrayNode();
+        output.addAll(runPart(parts.get(0), dir));
+        assertThat(new File(dir, FIRST_SEGMENT).length()).isPositive();
+        // what App does every CHECKPOINT_INTERVAL commands
+        Database state = recover(dir);
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            long segment = journal.startSegment();
+            Checkpoint.write(new File(dir, CHECKPOINT_FILE), state, segment);
+            journal.deleteSegmentsBefore(segment);
+        }
+        assertThat(new File(dir, FIRST_SEGMENT)).doesNotExist();
+        // replaying the first part on top of the checkpoint would apply it
+        // twice and give the tickets other ids
+        output.addAll(runPart(parts.get(1), dir));
+        output.addAll(runPart(parts.get(2), dir));
+
+        assertThat(lastSegment(dir).getName()).isEqualTo("journal-1.log");
+        assertThat(lastSegment(dir).length()).isPositive();
+        assertThat(output).isEqualTo(runInMemory(commands));
+        assertThat(snapshot(recover(dir))).isEqualTo(snapshot(runDirectly(commands)));
+    }
+
+    @Test
+    public void crashedRunReleasesOnlyTheResultsOfSyncedCommands() throws Exception {
+        List<JsonNode> commands = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            commands.add(command("reportTicket", "lilith_reporter", "2025-10-01")
+                    .set("params", MAPPER.createObjectNode()
+                            .put("type", "BUG").put("title", "Crash " + i)
+                            .put("businessPriority", "LOW")
+                            .put("reportedBy", "lilith_reporter")
+                            .put("expertiseArea", "BACKEND").put("severity", "MINOR")));
+            if (i % 25 == 0) {
+                commands.add(command("viewTickets", "lilith_reporter", "2025-10-01"));
+            }
+        }
+        List<JsonNode> crashing = new ArrayList<>(commands);
+        crashing.add(command("reportTicket", "lilith_reporter", "not-a-date"));
+        crashing.add(command("viewTickets", "lilith_reporter", "2025-10-02"));
+        File dir = tmp.resolve("journal").toFile();
+        File crashOutput = tmp.resolve("crash.json").toFile();
+
+        assertThatThrownBy(() -> App.run(write(crashing), crashOutput.getPath(), dir.getPath()))
+                .isInstanceOf(DateTimeParseException.class);
+
+        int synced = replayed(dir);
+        assertThat(synced).isPositive().isLessThan(300);
+        // what was released is the output of a run stopping right after the last sync
+        List<JsonNode> upToSync = new ArrayList<>();
+        int mutating = 0;
+        for (JsonNode c : commands) {
+            if (CommandFactory.isMutating(c.get("command").asText()) && mutating++ == synced) {
+                break;
+            }
+            upToSync.add(c);
+        }
+        assertThat(MAPPER.readTree(crashOutput)).isEqualTo(runInMemory(upToSync));
+
+        ArrayNode output = MAPPER.createArrayNode();
+        output.addAll((ArrayNode) MAPPER.readTree(crashOutput));
+        output.addAll(runPart(commands.subList(upToSync.size(), commands.size()), dir));
+        assertThat(output).isEqualTo(runInMemory(commands));
+    }
+
+    @Test
+    public void tornOrCorruptTailRecordsAreDropped() throws Exception {
+        File dir = Files.createDirectories(tmp.resolve("journal")).toFile();
+        File file = new File(dir, FIRST_SEGMENT);
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            for (int i = 0; i < 3; i++) {
+                journal.append(command("changeStatus", "dev" + i, "2025-10-01"));
+            }
+            assertThat(journal.hasPending()).isTrue();
+            assertThat(journal.size()).isZero();
+            assertThat(file.length()).isZero();
+            journal.sync();
+            assertThat(journal.size()).isEqualTo(file.length()).isPositive();
+        }
+        long complete = file.length();
+
+        appendTornRecord(file);
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            assertThat(journal.size()).isEqualTo(complete);
+            assertThat(file.length()).isEqualTo(complete);
+            assertThat(usernames(journal)).containsExactly("dev0", "dev1", "dev2");
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // the last byte of the last payload, so only its checksum breaks
+            raf.seek(complete - 1);
+            int last = raf.read();
+            raf.seek(complete - 1);
+            raf.write(last ^ 1);
+        }
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            assertThat(usernames(journal)).containsExactly("dev0", "dev1");
+            assertThat(journal.size()).isLessThan(complete).isEqualTo(file.length());
+            journal.append(command("changeStatus", "unsynced", "2025-10-01"));
+        }
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            assertThat(usernames(journal)).containsExactly("dev0", "dev1");
+            assertThatThrownBy(() -> journal.replay(1, c -> { }))
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    public void olderSegmentsAreReadOnlyWhenReplayed() throws Exception {
+        File dir = Files.createDirectories(tmp.resolve("journal")).toFile();
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            journal.append(command("changeStatus", "dev0", "2025-10-01"));
+            assertThat(journal.startSegment()).isEqualTo(1);
+            journal.append(command("changeStatus", "dev1", "2025-10-01"));
+            journal.sync();
+        }
+        File first = new File(dir, FIRST_SEGMENT);
+        try (RandomAccessFile raf = new RandomAccessFile(first, "rw")) {
+            raf.setLength(first.length() - 1);
+        }
+
+        // opening only checks the segment appended to, so it does not notice
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            assertThat(journal.size()).isEqualTo(new File(dir, "journal-1.log").length());
+            List<String> replayed = new ArrayList<>();
+            journal.replay(1, c -> replayed.add(c.get("username").asText()));
+            assertThat(replayed).containsExactly("dev1");
+            assertThatThrownBy(() -> usernames(journal))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("corrupt journal segment");
+        }
+    }
+
+    private ArrayNode runPart(final List<JsonNode> commands, final File dir) throws IOException {
+        File output = Files.createTempFile(tmp, "out", ".json").toFile();
+        App.run(write(commands), output.getPath(), dir.getPath());
+        return (ArrayNode) MAPPER.readTree(output);
+    }
+
+    private JsonNode runInMemory(final List<JsonNode> commands) throws IOException {
+        File output = Files.createTempFile(tmp, "expected", ".json").toFile();
+        App.run(write(commands), output.getPath());
+        return MAPPER.readTree(output);
+    }
+
+    private String write(final List<JsonNode> commands) throws IOException {
+        File input = Files.createTempFile(tmp, "in", ".json").toFile();
+        MAPPER.writeValue(input, commands);
+        return input.getPath();
+    }
+
+    /**
+     Rebuilds the state a run on the directory starts from, as App does.
+     */
+    private static Database recover(final File dir) throws IOException {
+        Database db = TestFixtures.databaseWithUsers();
+        File checkpoint = new File(dir, CHECKPOINT_FILE);
+        long segment = checkpoint.exists() ? Checkpoint.read(checkpoint, db) : 0;
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            journal.replay(segment, c -> TestFixtures.create(c).execute(db));
+        }
+        return db;
+    }
+
+    private static int replayed(final File dir) throws IOException {
+        try (CommandJournal journal = new CommandJournal(MAPPER, dir, 128)) {
+            return usernames(journal).size();
+        }
+    }
+
+    private static List<String> usernames(final CommandJournal journal) throws IOException {
+        List<String> usernames = new ArrayList<>();
+        journal.replay(0, c -> usernames.add(c.get("username").asText()));
+        return usernames;
+    }
+
+    private static Database runDirectly(final List<JsonNode> commands) throws IOException {
+        Database db = TestFixtures.databaseWithUsers();
+        for (JsonNode c : commands) {
+            TestFixtures.create(c).execute(db);
+        }
+        return db;
+    }
+
+    private static File lastSegment(final File dir) {
+        File[] segments = dir.listFiles((d, name) -> name.matches("journal-\\d+\\.log"));
+        assertThat(segments).isNotEmpty();
+        File last = segments[0];
+        for (File f : segments) {
+            if (segmentNumber(f) > segmentNumber(last)) {
+                last = f;
+            }
+        }
+        return last;
+    }
+
+    private static long segmentNumber(final File segment) {
+        return Long.parseLong(segment.getName().replaceAll("\\D", ""));
+    }
+
+    private static void appendTornRecord(final File journal) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1000);
+        out.writeInt(0);
+        out.write(new byte[10]);
+        Files.write(journal.toPath(), bytes.toByteArray(), StandardOpenOption.APPEND);
+    }
+
+    private static byte[] snapshot(final Database db) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            db.writeSnapshot(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ObjectNode command(final String name, final String username,
+                                      final String timestamp) {
+        return MAPPER.createObjectNode().put("command", name).put("username", username)
+                .put("timestamp", timestamp);
+    }
+
+    private static List<List<JsonNode>> split(final List<JsonNode> commands, final int count) {
+        List<List<JsonNode>> parts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            parts.add(commands.subList(commands.size() * i / count,
+                    commands.size() * (i + 1) / count));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,98 @@
+import cod.database.Database;
+import cod.database.NotificationDispatcher;
+import cod.model.Developer;
+import cod.model.User;
+import cod.utils.NotificationManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that the dispatcher loses no notification, keeps the messages of a
+ publisher in order for every user, and that flush delivers everything
+ published before it.
+ */
+public class NotificationDispatcherTest {
+    private static final int PUBLISHERS = 4;
+    private static final int MESSAGES = 2_000;
+
+    @Test
+    public void flushDeliversEverythingInOrder() throws Exception {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        User shared = newUser("shared");
+        List<User> own = new ArrayList<>();
+        for (int p = 0; p < PUBLISHERS; p++) {
+            own.add(newUser("dev" + p));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < PUBLISHERS; p++) {
+            int publisher = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < MESSAGES; i++) {
+                    dispatcher.publish(List.of(own.get(publisher), shared),
+                            publisher + ":" + i);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        dispatcher.flush();
+
+        List<String> all = shared.takeNotifications();
+        assertThat(all).hasSize(PUBLISHERS * MESSAGES);
+        for (int p = 0; p < PUBLISHERS; p++) {
+            String prefix = p + ":";
+            assertThat(all.stream().filter(n -> n.startsWith(prefix)).toList())
+                    .containsExactlyElementsOf(expected(p));
+        }
+        for (int p = 0; p < PUBLISHERS; p++) {
+            assertThat(own.get(p).takeNotifications()).containsExactlyElementsOf(expected(p));
+        }
+    }
+
+    @Test
+    public void duplicateRecipientsGetTheMessageTwice() {
+        NotificationDispatcher dispatcher = new NotificationDispatcher();
+        User dev = newUser("dev");
+        dispatcher.publish(List.of(dev, dev), "hello");
+        dispatcher.flush();
+        assertThat(dev.getNotifications()).containsExactly("hello", "hello");
+    }
+
+    @Test
+    public void resetDeliversWhatWasQueued() {
+        Database db = new Database();
+        User dev = newUser("dev");
+        db.setUsers(new ArrayList<>(List.of(dev)));
+        NotificationManager.notifyUsers(db, List.of("dev"), "hello");
+        db.reset();
+        assertThat(dev.getNotifications()).containsExactly("hello");
+    }
+
+    private static List<String> expected(final int publisher) {
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.add(publisher + ":" + i);
+        }
+        return messages;
+    }
+
+    private static User newUser(final String username) {
+        User u = new Developer();
+        u.setUsername(username);
+        return u;
+    }
+}
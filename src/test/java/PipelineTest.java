@@ -0,0 +1,78 @@
+import cod.io.AsyncResultWriter;
+import cod.io.CommandReader;
+import cod.io.CommandSource;
+import cod.io.PrefetchingReader;
+import cod.io.ResultWriter;
+import cod.io.Serialization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that the pipeline stages of App.run are transparent: the prefetching
+ reader yields the commands of the plain reader and the asynchronous writer
+ produces the same bytes as the plain writer, whatever the queue capacity.
+ */
+public class PipelineTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+    private static final File INPUT = new File("input/in_18_test_complex.json");
+
+    @Test
+    public void prefetchingReaderYieldsTheSameCommands() throws Exception {
+        List<JsonNode> expected = readAll(new CommandReader(MAPPER, INPUT));
+        for (int capacity : new int[] {1, 2, 1024}) {
+            List<JsonNode> actual = readAll(
+                    new PrefetchingReader(new CommandReader(MAPPER, INPUT), capacity));
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    public void closingBeforeTheEndStopsTheParser() throws Exception {
+        try (PrefetchingReader reader =
+                     new PrefetchingReader(new CommandReader(MAPPER, INPUT), 1)) {
+            assertThat(reader.next()).isNotNull();
+        }
+    }
+
+    @Test
+    public void asyncWriterWritesTheSameBytes(@TempDir final Path tmp) throws Exception {
+        List<JsonNode> results = readAll(new CommandReader(MAPPER, INPUT));
+        File plain = tmp.resolve("plain.json").toFile();
+        try (ResultWriter writer = new ResultWriter(MAPPER, plain)) {
+            for (JsonNode result : results) {
+                writer.write(result);
+            }
+        }
+        File async = tmp.resolve("async.json").toFile();
+        try (AsyncResultWriter writer =
+                     new AsyncResultWriter(new ResultWriter(MAPPER, async), 2)) {
+            for (JsonNode result : results) {
+                writer.write(result);
+            }
+        }
+        assertThat(Files.readAllBytes(async.toPath()))
+                .isEqualTo(Files.readAllBytes(plain.toPath()));
+    }
+
+    private static List<JsonNode> readAll(final CommandSource source) throws Exception {
+        List<JsonNode> commands = new ArrayList<>();
+        try (source) {
+            for (JsonNode command = source.next(); command != null; command = source.next()) {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,86 @@
+import cod.command.CommandFactory;
+import cod.command.ReadOnlyBatch;
+import cod.database.Database;
+import cod.io.Serialization;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that running the read-only commands between two mutating ones as a
+ parallel batch gives the results of a sequential run, in input order.
+ */
+public class ReadOnlyBatchTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"input/in_11_test_search.json",
+            "input/in_17_test_performance.json", "input/in_18_test_complex.json",
+            "input/in_19_test_complex_edge_case.json"})
+    public void batchedRunMatchesSequentialRun(final String inputPath) throws Exception {
+        List<JsonNode> commands = TestFixtures.readCommands(inputPath);
+
+        Database sequentialDb = TestFixtures.databaseWithUsers();
+        List<ObjectNode> expected = new ArrayList<>();
+        for (JsonNode command : commands) {
+            expected.add(TestFixtures.create(command).execute(sequentialDb));
+        }
+
+        Database batchedDb = TestFixtures.databaseWithUsers();
+        List<ObjectNode> actual = new ArrayList<>();
+        ReadOnlyBatch batch = new ReadOnlyBatch(true);
+        int batched = 0;
+        for (JsonNode command : commands) {
+            String name = command.get("command").asText();
+            if (!CommandFactory.isMutating(name)) {
+                batch.add(name, TestFixtures.create(command));
+                batched++;
+                continue;
+            }
+            actual.addAll(batch.execute(batchedDb));
+            batch.clear();
+            actual.add(TestFixtures.create(command).execute(batchedDb));
+        }
+        actual.addAll(batch.execute(batchedDb));
+
+        assertThat(batched).isPositive();
+        // results may hold POJO views, so they are compared as written
+        assertThat(MAPPER.writeValueAsString(actual))
+                .isEqualTo(MAPPER.writeValueAsString(expected));
+    }
+
+    @Test
+    public void resultsKeepInputOrderWhateverFinishesFirst() {
+        ReadOnlyBatch batch = new ReadOnlyBatch(true);
+        int size = 8;
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            // earlier commands take longer, so they finish last
+            batch.add("view" + i, db -> {
+                sleep((size - index) * 5L);
+                return MAPPER.createObjectNode().put("index", index);
+            });
+        }
+        List<ObjectNode> results = batch.execute(new Database());
+        assertThat(batch.getNames()).hasSize(size);
+        for (int i = 0; i < size; i++) {
+            assertThat(results.get(i).get("index").asInt()).isEqualTo(i);
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
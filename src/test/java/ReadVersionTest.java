@@ -0,0 +1,113 @@
+import cod.database.Database;
+import cod.database.ReadVersion;
+import cod.model.Bug;
+import cod.model.Comment;
+import cod.model.Ticket;
+import cod.model.enums.TicketType;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that pinned versions are isolated from later writes, that unchanged
+ tickets are shared between versions and that readers of a pinned version are
+ not disturbed by a concurrent writer.
+ */
+public class ReadVersionTest {
+    private static final int TICKETS = 500;
+
+    @Test
+    public void pinnedVersionIgnoresLaterWrites() {
+        Database db = newDatabase();
+        ReadVersion before = db.pinVersion();
+
+        Ticket live = db.getTicket(7);
+        live.setStatus("CLOSED");
+        live.addComment(new Comment("dev", "closing this one", "2025-01-02"));
+        db.addTicket(newTicket());
+
+        assertThat(before.getTicket(7).getStatus()).isEqualTo("OPEN");
+        assertThat(before.getTicket(7).getComments()).isEmpty();
+        assertThat(before.getTickets()).hasSize(TICKETS);
+        assertThat(before.findTickets("OPEN")).hasSize(TICKETS);
+
+        ReadVersion after = db.pinVersion();
+        assertThat(after.getNumber()).isGreaterThan(before.getNumber());
+        assertThat(after.getTicket(7).getStatus()).isEqualTo("CLOSED");
+        assertThat(after.getTickets()).hasSize(TICKETS + 1);
+        assertThat(after.findTickets("OPEN")).hasSize(TICKETS);
+        assertThat(after.findTickets("CLOSED")).extracting(Ticket::getId).containsExactly(7);
+        assertThat(before.findTickets("CLOSED")).isEmpty();
+    }
+
+    @Test
+    public void unchangedTicketsAreShared() {
+        Database db = newDatabase();
+        ReadVersion first = db.pinVersion();
+        assertThat(db.pinVersion()).isSameAs(first);
+
+        db.getTicket(3).setAssignedTo("dev");
+        ReadVersion second = db.pinVersion();
+        assertThat(second.getTicket(3)).isNotSameAs(first.getTicket(3));
+        assertThat(second.getTicket(4)).isSameAs(first.getTicket(4));
+        assertThat(second.getTicketsAssignedTo("dev")).extracting(Ticket::getId)
+                .containsExactly(3);
+        assertThat(first.getAssignedTickets()).isEmpty();
+    }
+
+    @Test
+    public void readersAreNotDisturbedByAWriter() throws Exception {
+        Database db = newDatabase();
+        ReadVersion pinned = db.pinVersion();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int round = 0; !done.get(); round++) {
+                Ticket t = db.getTicket(round % TICKETS);
+                db.ticketLock(t.getId()).lock();
+                try {
+                    t.addComment(new Comment("dev", "comment " + round, "2025-01-02"));
+                    t.setStatus((round & 1) == 0 ? "IN_PROGRESS" : "OPEN");
+                } finally {
+                    db.ticketLock(t.getId()).unlock();
+                }
+                if (round % TICKETS == 0) {
+                    db.pinVersion();
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                int comments = 0;
+                for (Ticket t : pinned.getTickets()) {
+                    comments += t.getComments().size();
+                }
+                assertThat(comments).isZero();
+                assertThat(pinned.findTickets("OPEN")).hasSize(TICKETS);
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    private static Database newDatabase() {
+        Database db = new Database();
+        for (int i = 0; i < TICKETS; i++) {
+            db.addTicket(newTicket());
+        }
+        return db;
+    }
+
+    private static Ticket newTicket() {
+        Ticket t = new Bug();
+        t.setType(TicketType.BUG);
+        t.setTitle("ticket");
+        t.setBusinessPriority("LOW");
+        t.setReportedBy("reporter");
+        t.setCreatedAt("2025-01-01");
+        return t;
+    }
+}
@@ -0,0 +1,68 @@
+import cod.model.Bug;
+import cod.model.Ticket;
+import cod.model.enums.TicketType;
+import cod.utils.ReportAccumulator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that accumulating in chunks on the fork/join pool gives exactly the
+ counts, sums and averages of one sequential pass over the tickets.
+ */
+public class ReportAccumulatorTest {
+    private static final int TICKETS = 10_000;
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH", "CRITICAL"};
+
+    @Test
+    public void chunkedResultsAreIdenticalToSequential() {
+        Random random = new Random(42);
+        List<Ticket> tickets = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (int i = 0; i < TICKETS; i++) {
+            Ticket t = new Bug();
+            t.setId(i);
+            t.setType(TicketType.values()[random.nextInt(TicketType.values().length)]);
+            t.setBusinessPriority(PRIORITIES[random.nextInt(PRIORITIES.length)]);
+            tickets.add(t);
+            // values spread over many magnitudes so the summation order matters
+            scores.add(random.nextInt(10) == 0 ? Double.NaN
+                    : random.nextDouble() * Math.pow(10, random.nextInt(12)));
+        }
+        List<ToDoubleFunction<Ticket>> scorers = List.of(t -> scores.get(t.getId()),
+                t -> t.getId() % 3);
+
+        ReportAccumulator chunked = ReportAccumulator.collectInChunks(tickets, scorers);
+        ReportAccumulator sequential = ReportAccumulator.collect(tickets, scorers);
+
+        assertThat(chunked.getTotal()).isEqualTo(TICKETS);
+        assertThat(chunked.getTicketsByType()).containsExactlyEntriesOf(
+                sequential.getTicketsByType());
+        assertThat(chunked.getTicketsByPriority()).containsExactlyEntriesOf(
+                sequential.getTicketsByPriority());
+        for (TicketType type : TicketType.values()) {
+            double sum = 0.0;
+            int count = 0;
+            for (Ticket t : tickets) {
+                double score = scores.get(t.getId());
+                if (t.getType() == type && !Double.isNaN(score)) {
+                    sum += score;
+                    count++;
+                }
+            }
+            for (int scorer = 0; scorer < scorers.size(); scorer++) {
+                assertThat(chunked.sum(scorer, type.name()))
+                        .isEqualTo(sequential.sum(scorer, type.name()));
+                assertThat(chunked.average(scorer, type.name()))
+                        .isEqualTo(sequential.average(scorer, type.name()));
+            }
+            assertThat(chunked.sum(0, type.name())).isEqualTo(sum);
+            assertThat(chunked.hasScores(0, type.name())).isEqualTo(count > 0);
+        }
+    }
+}
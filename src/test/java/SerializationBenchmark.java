@@ -0,0 +1,100 @@
+import cod.io.Serialization;
+import cod.model.Bug;
+import cod.model.Comment;
+import cod.model.Ticket;
+import cod.model.TicketAction;
+import cod.model.enums.TicketType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ Compares the per-command cost of serializing a ticket and its history with a
+ fresh ObjectMapper per command (the old behaviour) against the shared mapper
+ and pre-resolved writers of Serialization. Not part of the test suite; run it
+ with the test classpath: java -cp ... SerializationBenchmark [commands]
+ */
+public final class SerializationBenchmark {
+    private static final int DEFAULT_COMMANDS = 20_000;
+    private static final int ACTIONS = 10;
+    private static final int COMMENTS = 5;
+
+    private SerializationBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_COMMANDS;
+        Ticket ticket = sampleTicket();
+
+        // warm up both paths so the JIT does not favour the second one
+        run(ticket, commands / 4, false);
+        run(ticket, commands / 4, true);
+
+        long before = run(ticket, commands, false);
+        long after = run(ticket, commands, true);
+
+        System.out.printf("commands: %d%n", commands);
+        System.out.printf("mapper per command: %8.2f us/command%n", before / 1000.0 / commands);
+        System.out.printf("shared writers:     %8.2f us/command%n", after / 1000.0 / commands);
+    }
+
+    private static long run(final Ticket ticket, final int commands, final boolean shared) {
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < commands; i++) {
+            ObjectNode result = shared ? sharedCommand(ticket) : freshMapperCommand(ticket);
+            sink += result.size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 0) {
+            throw new IllegalStateException("nothing serialized");
+        }
+        return elapsed;
+    }
+
+    private static ObjectNode freshMapperCommand(final Ticket ticket) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode result = mapper.createObjectNode();
+        result.set("ticket", mapper.valueToTree(ticket));
+        ArrayNode actions = result.putArray("actions");
+        for (TicketAction action : ticket.getHistory()) {
+            actions.add(mapper.valueToTree(action));
+        }
+        result.set("comments", mapper.valueToTree(ticket.getComments()));
+        return result;
+    }
+
+    private static ObjectNode sharedCommand(final Ticket ticket) {
+        ObjectNode result = Serialization.mapper().createObjectNode();
+        result.set("ticket", Serialization.toTree(Serialization.TICKET, ticket));
+        ArrayNode actions = result.putArray("actions");
+        for (TicketAction action : ticket.getHistory()) {
+            actions.add(Serialization.toTree(Serialization.TICKET_ACTION, action));
+        }
+        result.set("comments", Serialization.toTree(Serialization.COMMENTS, ticket.getComments()));
+        return result;
+    }
+
+    private static Ticket sampleTicket() {
+        Ticket t = new Bug();
+        t.setId(1);
+        t.setType(TicketType.BUG);
+        t.setTitle("Login fails after password reset");
+        t.setBusinessPriority("HIGH");
+        t.setReportedBy("alice");
+        t.setCreatedAt("2025-01-10");
+        for (int i = 0; i < ACTIONS; i++) {
+            TicketAction action = new TicketAction();
+            action.setBy("dev" + i);
+            action.setTimestamp("2025-01-1" + (i % 10));
+            action.setAction("STATUS_CHANGED");
+            action.setFrom("OPEN");
+            action.setTo("IN_PROGRESS");
+            t.addHistory(action);
+        }
+        for (int i = 0; i < COMMENTS; i++) {
+            t.addComment(new Comment("dev" + i, "comment " + i, "2025-01-12"));
+        }
+        return t;
+    }
+}
@@ -0,0 +1,54 @@
+import cod.command.CommandFactory;
+import cod.command.ICommand;
+import cod.database.Database;
+import cod.io.Serialization;
+import cod.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ Setup shared by the tests that run the commands of the input files on a
+ database of their own.
+ */
+public final class TestFixtures {
+    private static final String USERS_FILE = "input/database/users.json";
+
+    private TestFixtures() {
+    }
+
+    /**
+     Creates a database holding the users of the input users file, as App does.
+     */
+    public static Database databaseWithUsers() throws IOException {
+        Database db = new Database();
+        db.setUsers(Serialization.mapper().readValue(new File(USERS_FILE),
+                new TypeReference<List<User>>() { }));
+        return db;
+    }
+
+    /**
+     Reads the commands of an input file, up to lostInvestors as App does.
+     */
+    public static List<JsonNode> readCommands(final String inputPath) throws IOException {
+        List<JsonNode> commands = new ArrayList<>();
+        for (JsonNode command : Serialization.mapper().readTree(new File(inputPath))) {
+            if ("lostInvestors".equals(command.path("command").asText())) {
+                break;
+            }
+            commands.add(command);
+        }
+        return commands;
+    }
+
+    /**
+     Creates the command described by an input node.
+     */
+    public static ICommand create(final JsonNode command) {
+        return CommandFactory.createCommand(command.get("command").asText(), command);
+    }
+}
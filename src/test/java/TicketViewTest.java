@@ -0,0 +1,80 @@
+import cod.io.Serialization;
+import cod.model.Bug;
+import cod.model.Comment;
+import cod.model.FeatureRequest;
+import cod.model.Ticket;
+import cod.model.TicketView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ Checks that every projection of TicketView writes exactly what the default
+ serialization of the ticket gives once the fields the view hides are removed,
+ in the same order, so a change to the model annotations cannot silently make
+ the views drift.
+ */
+public class TicketViewTest {
+    private static final ObjectMapper MAPPER = Serialization.mapper();
+
+    @Test
+    public void projectionsMatchTheTicketSerialization() {
+        for (Ticket t : List.of(fullTicket(), sparseTicket())) {
+            assertProjection(TicketView.of(t, TicketView.Projection.FULL), expected(t));
+            assertProjection(TicketView.of(t, TicketView.Projection.ASSIGNED),
+                    expected(t, "assignedTo", "solvedAt"));
+
+            ObjectNode search = expected(t, "assignedTo", "assignedAt", "comments");
+            search.putArray("matchingWords").add("crash").add("login");
+            assertProjection(TicketView.search(t, List.of("crash", "login")), search);
+            assertProjection(TicketView.search(t, List.of()),
+                    expected(t, "assignedTo", "assignedAt", "comments"));
+        }
+    }
+
+    private static ObjectNode expected(final Ticket t, final String... hidden) {
+        ObjectNode node = MAPPER.valueToTree(t);
+        node.remove(List.of(hidden));
+        return node;
+    }
+
+    private static void assertProjection(final TicketView view, final ObjectNode expected) {
+        JsonNode actual = MAPPER.valueToTree(view);
+        assertThat(actual).isEqualTo(expected);
+        List<String> actualOrder = new ArrayList<>();
+        actual.fieldNames().forEachRemaining(actualOrder::add);
+        List<String> expectedOrder = new ArrayList<>();
+        expected.fieldNames().forEachRemaining(expectedOrder::add);
+        assertThat(actualOrder).containsExactlyElementsOf(expectedOrder);
+    }
+
+    private static Ticket fullTicket() {
+        Ticket t = new Bug();
+        t.setId(7);
+        t.setTitle("Crash on login");
+        t.setBusinessPriority("HIGH");
+        t.setStatus("RESOLVED");
+        t.setReportedBy("reporter");
+        t.setCreatedAt("2025-01-02");
+        t.setAssignedTo("dev");
+        t.setAssignedAt("2025-01-03");
+        t.setSolvedAt("2025-01-05");
+        t.setSeverity("SEVERE");
+        t.addComment(new Comment("dev", "looking into it", "2025-01-04"));
+        t.addComment(new Comment("reporter", null, "2025-01-04"));
+        return t;
+    }
+
+    private static Ticket sparseTicket() {
+        // a ticket with nothing but its defaults, so the null handling shows
+        Ticket t = new FeatureRequest();
+        t.setId(8);
+        return t;
+    }
+}